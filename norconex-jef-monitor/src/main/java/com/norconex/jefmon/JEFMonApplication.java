@@ -17,11 +17,23 @@ package com.norconex.jefmon;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.CharEncoding;
 import org.apache.commons.lang3.ClassUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 import org.apache.wicket.Session;
@@ -36,9 +48,11 @@ import com.norconex.jefmon.home.HomePage;
 import com.norconex.jefmon.instance.InstancePage;
 import com.norconex.jefmon.instance.JEFMonInstance;
 import com.norconex.jefmon.instance.action.IJobAction;
+import com.norconex.jefmon.instances.RemoteInstancesPoller;
 import com.norconex.jefmon.settings.initial.InitialSetupPage;
 import com.norconex.jefmon.settings.update.SettingsPage;
 import com.norconex.jefmon.ws.JobSuiteProgressJsonPage;
+import com.norconex.jefmon.ws.JobTreeJsonPage;
 
 /**
  * Application object for JEF web application.
@@ -53,10 +67,22 @@ public class JEFMonApplication extends WebApplication {
     private static final Logger LOG = 
             LogManager.getLogger(JEFMonApplication.class);
 
+    /** Maximum connections kept open to a single remote instance. */
+    public static final int REMOTE_MAX_CONNECTIONS_PER_ROUTE = 4;
+    /** Maximum connections kept open to all remote instances. */
+    public static final int REMOTE_MAX_CONNECTIONS = 200;
+    /** How long connections are kept alive when remotes do not say. */
+    public static final long REMOTE_KEEP_ALIVE = 60 * 1000;
+    /** How long connections can stay idle before being closed. */
+    public static final long REMOTE_MAX_IDLE = 30 * 1000;
+
     private final JEFMonInstance statusesMonitor;
     private final JEFMonConfig monitorConfig;
     private final Locale[] supportedLocales;
     private final List<IJobAction> allJobsActions = new ArrayList<>();
+    private ExecutorService remoteExecutor;
+    private CloseableHttpClient remoteHttpClient;
+    private RemoteInstancesPoller remoteInstancesPoller;
 
     public JEFMonApplication(JEFMonConfig config, Locale[] supportedLocales) {
         super();
@@ -109,6 +135,32 @@ public class JEFMonApplication extends WebApplication {
         return statusesMonitor;
     }
 
+    /**
+     * Gets the executor remote instances are loaded with, concurrently.
+     * @return remote instances executor
+     */
+    public ExecutorService getRemoteExecutor() {
+        return remoteExecutor;
+    }
+
+    /**
+     * Gets the HTTP client shared by all requests to remote instances.
+     * Its connections are pooled and kept alive between requests,
+     * and closed when idle for too long.
+     * @return remote instances HTTP client
+     */
+    public HttpClient getRemoteHttpClient() {
+        return remoteHttpClient;
+    }
+
+    /**
+     * Gets the poller keeping the latest summaries of remote instances.
+     * @return remote instances poller
+     */
+    public RemoteInstancesPoller getRemoteInstancesPoller() {
+        return remoteInstancesPoller;
+    }
+
     @Override
     protected void init() {
 
@@ -127,13 +179,51 @@ public class JEFMonApplication extends WebApplication {
         mountPage("settings", SettingsPage.class);
         mountPage("suites/json", JobSuiteProgressJsonPage.class);
         mountPage("jobs", InstancePage.class);
+        mountPage("jobs/json", JobTreeJsonPage.class);
 
         getMarkupSettings().setStripWicketTags(true);
 
+        remoteExecutor = Executors.newCachedThreadPool(
+                new BasicThreadFactory.Builder()
+                        .namingPattern("jefmon-remote-%d")
+                        .daemon(true)
+                        .build());
+        remoteHttpClient = createRemoteHttpClient();
+        remoteInstancesPoller = new RemoteInstancesPoller(
+                monitorConfig, remoteHttpClient, remoteExecutor);
+        remoteInstancesPoller.start();
+
         statusesMonitor.startMonitoring();
 
     }
 
+    private CloseableHttpClient createRemoteHttpClient() {
+        PoolingHttpClientConnectionManager connectionManager =
+                new PoolingHttpClientConnectionManager();
+        connectionManager.setDefaultMaxPerRoute(
+                REMOTE_MAX_CONNECTIONS_PER_ROUTE);
+        connectionManager.setMaxTotal(REMOTE_MAX_CONNECTIONS);
+        // Stale connections are checked before being reused.
+        connectionManager.setValidateAfterInactivity(1000);
+        return HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(new DefaultConnectionKeepAliveStrategy() {
+                    @Override
+                    public long getKeepAliveDuration(
+                            HttpResponse response, HttpContext context) {
+                        long duration = 
+                                super.getKeepAliveDuration(response, context);
+                        if (duration < 0) {
+                            return REMOTE_KEEP_ALIVE;
+                        }
+                        return duration;
+                    }
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(REMOTE_MAX_IDLE, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
     private void initJobActions() {
         List<String> classes = ClassFinder.findSubTypes(IJobAction.class);
         for (String className : classes) {
@@ -153,6 +243,13 @@ public class JEFMonApplication extends WebApplication {
     @Override
     protected void onDestroy() {
         statusesMonitor.stopMonitoring();
+        if (remoteInstancesPoller != null) {
+            remoteInstancesPoller.stop();
+        }
+        if (remoteExecutor != null) {
+            remoteExecutor.shutdownNow();
+        }
+        IOUtils.closeQuietly(remoteHttpClient);
         super.onDestroy();
     }
     
@@ -16,6 +16,7 @@ package com.norconex.jefmon;
 
 import java.io.File;
 import java.io.Serializable;
+import java.util.UUID;
 
 import org.apache.commons.lang3.ArrayUtils;
 
@@ -24,14 +25,35 @@ import com.norconex.jefmon.instance.action.IJobAction;
 public class JEFMonConfig implements Serializable {
 
     public static final int DEFAULT_REFRESH_INTERVAL = 5;
+    public static final int DEFAULT_SCAN_THREADS = 0;
+    public static final long DEFAULT_HOT_SCAN_INTERVAL = 1000;
+    public static final long DEFAULT_COLD_SCAN_INTERVAL = 5 * 60 * 1000;
+    public static final long DEFAULT_SCAN_TIMEOUT = 30 * 1000;
+    public static final int DEFAULT_SCAN_DEPTH = 0;
+    public static final long DEFAULT_REMOTE_CONNECT_TIMEOUT = 2 * 1000;
+    public static final long DEFAULT_REMOTE_READ_TIMEOUT = 5 * 1000;
+    public static final long DEFAULT_REMOTE_TIMEOUT = 8 * 1000;
+    public static final int DEFAULT_FEDERATION_DEPTH = 3;
 
     private static final long serialVersionUID = -5553575452353106467L;
 
     private IJobAction[] jobActions;
     private int defaultRefreshInterval = DEFAULT_REFRESH_INTERVAL;
+    private String instanceId = UUID.randomUUID().toString();
     private String instanceName;
     private String[] remoteInstanceUrls;
     private File[] monitoredPaths;
+    private int scanThreads = DEFAULT_SCAN_THREADS;
+    private long hotScanInterval = DEFAULT_HOT_SCAN_INTERVAL;
+    private long coldScanInterval = DEFAULT_COLD_SCAN_INTERVAL;
+    private long scanTimeout = DEFAULT_SCAN_TIMEOUT;
+    private int scanDepth = DEFAULT_SCAN_DEPTH;
+    private String[] scanIncludes;
+    private String[] scanExcludes;
+    private long remoteConnectTimeout = DEFAULT_REMOTE_CONNECT_TIMEOUT;
+    private long remoteReadTimeout = DEFAULT_REMOTE_READ_TIMEOUT;
+    private long remoteTimeout = DEFAULT_REMOTE_TIMEOUT;
+    private int federationDepth = DEFAULT_FEDERATION_DEPTH;
     
     public JEFMonConfig() {
         super();
@@ -43,6 +65,20 @@ public class JEFMonConfig implements Serializable {
     public void setJobActions(IJobAction[] actionClasses) {
         this.jobActions = ArrayUtils.clone(actionClasses);
     }
+    /**
+     * Gets the unique and persistent identifier of this instance, 
+     * telling it apart from other instances monitoring one another.
+     * New configurations get a random id, kept once saved.  Configuration
+     * files without one get an id derived from the host and configuration
+     * directory, so it does not change between restarts.
+     * @return instance id
+     */
+    public String getInstanceId() {
+        return instanceId;
+    }
+    public void setInstanceId(String instanceId) {
+        this.instanceId = instanceId;
+    }
     public String getInstanceName() {
         return instanceName;
     }
@@ -71,4 +107,144 @@ public class JEFMonConfig implements Serializable {
     public void setDefaultRefreshInterval(int defaultRefreshInterval) {
         this.defaultRefreshInterval = defaultRefreshInterval;
     }
+
+    /**
+     * Gets the maximum number of threads used to load suite index files
+     * in parallel when scanning monitored paths.  Zero or less (the 
+     * default) uses as many threads as there are processors on the 
+     * machine running the monitor.
+     * @return number of threads
+     */
+    public int getScanThreads() {
+        return scanThreads;
+    }
+    public void setScanThreads(int scanThreads) {
+        this.scanThreads = scanThreads;
+    }
+
+    /**
+     * Gets how often running suites, or suites that just changed,
+     * are checked for changes, in milliseconds.
+     * @return hot scan interval
+     */
+    public long getHotScanInterval() {
+        return hotScanInterval;
+    }
+    public void setHotScanInterval(long hotScanInterval) {
+        this.hotScanInterval = hotScanInterval;
+    }
+
+    /**
+     * Gets the maximum time between two checks of a suite that is not
+     * running, in milliseconds.  Such suites are checked less and less
+     * often, until they reach this interval.
+     * @return cold scan interval
+     */
+    public long getColdScanInterval() {
+        return coldScanInterval;
+    }
+    public void setColdScanInterval(long coldScanInterval) {
+        this.coldScanInterval = coldScanInterval;
+    }
+
+    /**
+     * Gets how long the scan of a monitored path can take before the
+     * path is reported as degraded, in milliseconds.  Other paths are
+     * scanned independently regardless.
+     * @return scan timeout
+     */
+    public long getScanTimeout() {
+        return scanTimeout;
+    }
+    public void setScanTimeout(long scanTimeout) {
+        this.scanTimeout = scanTimeout;
+    }
+
+    /**
+     * Gets how many levels of sub-directories of monitored directories
+     * are looked into for index files.  Zero only looks into monitored
+     * directories themselves.
+     * @return scan depth
+     */
+    public int getScanDepth() {
+        return scanDepth;
+    }
+    public void setScanDepth(int scanDepth) {
+        this.scanDepth = scanDepth;
+    }
+
+    /**
+     * Gets glob patterns a directory under a monitored directory must
+     * match (relative path or name) for its index files to be monitored.
+     * All directories are included when there are none.
+     * @return include patterns (can be <code>null</code>)
+     */
+    public String[] getScanIncludes() {
+        return scanIncludes;
+    }
+    public void setScanIncludes(String[] scanIncludes) {
+        this.scanIncludes = ArrayUtils.clone(scanIncludes);
+    }
+
+    /**
+     * Gets glob patterns matching directories (relative path or name)
+     * that should not be looked into under monitored directories.
+     * @return exclude patterns (can be <code>null</code>)
+     */
+    public String[] getScanExcludes() {
+        return scanExcludes;
+    }
+    public void setScanExcludes(String[] scanExcludes) {
+        this.scanExcludes = ArrayUtils.clone(scanExcludes);
+    }
+
+    /**
+     * Gets how long connecting to a remote instance can take,
+     * in milliseconds.
+     * @return remote connect timeout
+     */
+    public long getRemoteConnectTimeout() {
+        return remoteConnectTimeout;
+    }
+    public void setRemoteConnectTimeout(long remoteConnectTimeout) {
+        this.remoteConnectTimeout = remoteConnectTimeout;
+    }
+
+    /**
+     * Gets how long a remote instance can take to send more of its 
+     * response once connected, in milliseconds.
+     * @return remote read timeout
+     */
+    public long getRemoteReadTimeout() {
+        return remoteReadTimeout;
+    }
+    public void setRemoteReadTimeout(long remoteReadTimeout) {
+        this.remoteReadTimeout = remoteReadTimeout;
+    }
+
+    /**
+     * Gets how long loading a remote instance, which is polled in the
+     * background, can take in milliseconds.  Remote instances not 
+     * loaded by then are reported as timed out.
+     * @return remote instances timeout
+     */
+    public long getRemoteTimeout() {
+        return remoteTimeout;
+    }
+    public void setRemoteTimeout(long remoteTimeout) {
+        this.remoteTimeout = remoteTimeout;
+    }
+
+    /**
+     * Gets how many levels of remote instances are included in job
+     * counts of remote instances monitoring other remote instances.
+     * Remote instances monitored directly are one level deep.
+     * @return federation depth
+     */
+    public int getFederationDepth() {
+        return federationDepth;
+    }
+    public void setFederationDepth(int federationDepth) {
+        this.federationDepth = federationDepth;
+    }
 }
@@ -0,0 +1,31 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance;
+
+/**
+ * Listens for new generations of suite statuses published by a
+ * {@link JEFMonInstance}.  Listeners are invoked on monitor threads,
+ * one generation at a time in generation order, and should return
+ * quickly.
+ */
+public interface ISuiteStatusesListener {
+
+    /**
+     * Invoked after a new generation of suite statuses was published.
+     * @param previous previous generation (never <code>null</code>)
+     * @param current new generation (never <code>null</code>)
+     */
+    void suiteStatusesPublished(SuiteStatuses previous, SuiteStatuses current);
+}
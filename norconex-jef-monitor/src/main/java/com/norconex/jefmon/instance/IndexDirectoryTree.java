@@ -0,0 +1,197 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance;
+
+import java.io.File;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Finds directories holding suite index files under a monitored
+ * directory, down to a maximum depth.  Directory listings are cached
+ * and only read again when a directory last modified date changed
+ * (i.e., entries were added or removed), so unchanged directories are
+ * only checked for their date on each walk, not listed.
+ * Job status directories next to index files are never walked.
+ * <br><br>
+ * Include and exclude patterns are globs matched against a directory
+ * path relative to the monitored directory (using forward slashes),
+ * or against the directory name.  Excluded directories are not
+ * walked.  When include patterns are set, only index files of
+ * matching directories are returned.
+ * Not thread-safe.
+ */
+public class IndexDirectoryTree {
+
+    private final File root;
+    private Map<File, CachedDir> dirs = new HashMap<>();
+    private int lastListedCount;
+
+    public IndexDirectoryTree(File root) {
+        super();
+        this.root = root;
+    }
+
+    public File getRoot() {
+        return root;
+    }
+
+    /**
+     * Walks the directory tree for directories holding index files.
+     * @param maxDepth how many levels of sub-directories to walk
+     *        (0 for the root directory only)
+     * @param includes include patterns (can be <code>null</code>)
+     * @param excludes exclude patterns (can be <code>null</code>)
+     * @param staleDirs directories to list again regardless of their
+     *        last modified date (can be <code>null</code>)
+     * @param full <code>true</code> to list all directories again
+     * @return index files, keyed by directory holding them
+     */
+    public Map<File, Set<File>> walk(int maxDepth, String[] includes,
+            String[] excludes, Collection<File> staleDirs, boolean full) {
+        List<PathMatcher> includeMatchers = toMatchers(includes);
+        List<PathMatcher> excludeMatchers = toMatchers(excludes);
+        Map<File, CachedDir> walked = new HashMap<>();
+        Map<File, Set<File>> indexDirs = new HashMap<>();
+        int listed = 0;
+
+        Deque<File> queue = new ArrayDeque<>();
+        Deque<Integer> depths = new ArrayDeque<>();
+        queue.add(root);
+        depths.add(0);
+        while (!queue.isEmpty()) {
+            File dir = queue.poll();
+            int depth = depths.poll();
+            long modified = dir.lastModified();
+            if (modified == 0) {
+                continue;
+            }
+            CachedDir cached = dirs.get(dir);
+            if (cached == null || cached.modified != modified || full
+                    || (staleDirs != null && staleDirs.contains(dir))) {
+                cached = list(dir, modified);
+                listed++;
+            }
+            walked.put(dir, cached);
+
+            Path relative = root.toPath().relativize(dir.toPath());
+            if (!cached.indexFiles.isEmpty()
+                    && (includeMatchers.isEmpty() 
+                            || matches(includeMatchers, relative))) {
+                indexDirs.put(dir, cached.indexFiles);
+            }
+            if (depth < maxDepth) {
+                for (File subdir : cached.subdirs) {
+                    if (!matches(excludeMatchers, 
+                            root.toPath().relativize(subdir.toPath()))) {
+                        queue.add(subdir);
+                        depths.add(depth + 1);
+                    }
+                }
+            }
+        }
+        dirs = walked;
+        lastListedCount = listed;
+        return indexDirs;
+    }
+
+    /**
+     * Gets how many directories the last walk had to list.
+     * @return listed directory count
+     */
+    public int getLastListedCount() {
+        return lastListedCount;
+    }
+    /**
+     * Gets how many directories the last walk went through.
+     * @return walked directory count
+     */
+    public int getLastWalkedCount() {
+        return dirs.size();
+    }
+
+    private CachedDir list(File dir, long modified) {
+        Set<File> indexFiles = new HashSet<>();
+        List<File> subdirs = new ArrayList<>();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(IndexFileWatcher.INDEX_EXTENSION)
+                        && file.isFile()) {
+                    indexFiles.add(file);
+                } else if (file.isDirectory()) {
+                    subdirs.add(file);
+                }
+            }
+        }
+        if (!indexFiles.isEmpty()) {
+            subdirs.remove(new File(dir, IndexFileWatcher.STATUS_DIR));
+        }
+        return new CachedDir(modified, 
+                subdirs.toArray(new File[subdirs.size()]),
+                Collections.unmodifiableSet(indexFiles));
+    }
+
+    private boolean matches(List<PathMatcher> matchers, Path relative) {
+        Path name = relative.getFileName();
+        for (PathMatcher matcher : matchers) {
+            if (matcher.matches(relative)
+                    || (name != null && matcher.matches(name))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<PathMatcher> toMatchers(String[] patterns) {
+        List<PathMatcher> matchers = new ArrayList<>();
+        if (patterns != null) {
+            FileSystem fs = FileSystems.getDefault();
+            for (String pattern : patterns) {
+                if (StringUtils.isNotBlank(pattern)) {
+                    matchers.add(fs.getPathMatcher(
+                            "glob:" + pattern.trim()));
+                }
+            }
+        }
+        return matchers;
+    }
+
+    private static class CachedDir {
+        private final long modified;
+        private final File[] subdirs;
+        private final Set<File> indexFiles;
+        public CachedDir(long modified, File[] subdirs, Set<File> indexFiles) {
+            super();
+            this.modified = modified;
+            this.subdirs = subdirs;
+            this.indexFiles = indexFiles;
+        }
+    }
+}
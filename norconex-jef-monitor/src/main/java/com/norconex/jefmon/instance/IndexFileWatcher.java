@@ -0,0 +1,368 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * Watches monitored directories for suite index files and job status
+ * files being created, modified or deleted. Directories located on
+ * file systems known not to deliver change events (network mounts
+ * mostly) or that cannot be registered are instead reported as
+ * "polled", and it is up to the caller to list them at every scan.
+ */
+@SuppressWarnings("nls")
+public class IndexFileWatcher implements Closeable {
+
+    private static final Logger LOG =
+            LogManager.getLogger(IndexFileWatcher.class);
+
+    public static final String INDEX_EXTENSION = ".index";
+    public static final String STATUS_DIR = "status";
+    public static final String STATUS_EXTENSION = ".job";
+
+    // File store types for which change events are only reported for
+    // changes made locally, if at all.
+    private static final String[] POLLED_FILE_STORE_TYPES = {
+        "nfs", "nfs4", "cifs", "smbfs", "smb2", "smb3", "afs", "9p",
+        "fuse.sshfs", "davfs", "vboxsf", "prl_fs", "vmhgfs"
+    };
+    // Time given to a burst of events to settle before reporting them,
+    // and maximum time events of a never-ending burst are held.
+    private static final long EVENTS_SETTLE_TIME = 100;
+    private static final long EVENTS_MAX_DELAY = 1000;
+
+    private final WatchService watchService;
+    private final Map<Path, WatchKey> watchedDirs = new HashMap<>();
+    private final Set<Path> polledDirs = new HashSet<>();
+    private boolean fullScanRequired;
+    // Only used by the thread awaiting changes.
+    private Set<File> pendingFiles = new HashSet<>();
+    private long firstEventTime;
+    private long lastEventTime;
+
+    public IndexFileWatcher() {
+        super();
+        WatchService service = null;
+        try {
+            service = FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException e) {
+            LOG.warn("File system change events not supported. "
+                   + "Monitored paths will be polled.", e);
+        }
+        this.watchService = service;
+    }
+
+    /**
+     * Registers the directory of the given monitored path (or its
+     * parent directory for a monitored file), along with its job status
+     * sub-directory.  File system checks are made without holding
+     * a lock, so an unresponsive path does not block other callers.
+     * @param monitoredPath index file or directory holding index files
+     * @return directories newly watched, which should be listed once
+     *         by the caller to catch index files created before they
+     *         were watched
+     */
+    public Set<File> watch(File monitoredPath) {
+        Set<File> newDirs = new HashSet<>();
+        File dir = monitoredPath;
+        if (!monitoredPath.isDirectory()) {
+            dir = monitoredPath.getAbsoluteFile().getParentFile();
+        }
+        if (dir != null && dir.isDirectory()) {
+            watchDir(dir.toPath().toAbsolutePath(), newDirs);
+            File statusDir = new File(dir, STATUS_DIR);
+            if (statusDir.isDirectory()) {
+                watchDir(statusDir.toPath().toAbsolutePath(), newDirs);
+            }
+        }
+        return newDirs;
+    }
+
+    /**
+     * Unregisters directories no longer used by any of the given
+     * monitored paths.  Does not access the file system.
+     * @param monitoredPaths index files or directories holding index files
+     * @param recursive whether directories under monitored directories
+     *        are used
+     */
+    public synchronized void retain(File[] monitoredPaths, boolean recursive) {
+        Set<Path> dirs = new HashSet<>();
+        Set<Path> roots = new HashSet<>();
+        if (monitoredPaths != null) {
+            for (File path : monitoredPaths) {
+                File file = path.getAbsoluteFile();
+                addDir(dirs, file);
+                addDir(dirs, file.getParentFile());
+                roots.add(file.toPath());
+            }
+        }
+        Iterator<Entry<Path, WatchKey>> it = watchedDirs.entrySet().iterator();
+        while (it.hasNext()) {
+            Entry<Path, WatchKey> entry = it.next();
+            if (!isRetained(entry.getKey(), dirs, roots, recursive)
+                    || !entry.getValue().isValid()) {
+                entry.getValue().cancel();
+                it.remove();
+            }
+        }
+        Iterator<Path> polledIt = polledDirs.iterator();
+        while (polledIt.hasNext()) {
+            if (!isRetained(polledIt.next(), dirs, roots, recursive)) {
+                polledIt.remove();
+            }
+        }
+    }
+    private boolean isRetained(
+            Path dir, Set<Path> dirs, Set<Path> roots, boolean recursive) {
+        if (dirs.contains(dir)) {
+            return true;
+        }
+        if (recursive) {
+            for (Path root : roots) {
+                if (dir.startsWith(root)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    private void addDir(Set<Path> dirs, File dir) {
+        if (dir != null) {
+            dirs.add(dir.toPath());
+            dirs.add(new File(dir, STATUS_DIR).toPath());
+        }
+    }
+
+    private void watchDir(Path dir, Set<File> newDirs) {
+        synchronized (this) {
+            if (watchedDirs.containsKey(dir) || polledDirs.contains(dir)) {
+                return;
+            }
+        }
+        String type = getFileStoreType(dir);
+        synchronized (this) {
+            if (watchedDirs.containsKey(dir) || polledDirs.contains(dir)) {
+                return;
+            }
+            if (register(dir, type)) {
+                newDirs.add(dir.toFile());
+            } else {
+                polledDirs.add(dir);
+            }
+        }
+    }
+
+    /**
+     * Gets whether the given directory is watched for changes.
+     * @param dir directory
+     * @return <code>true</code> if change events are received for it
+     */
+    public synchronized boolean isWatched(File dir) {
+        return watchedDirs.containsKey(dir.toPath().toAbsolutePath());
+    }
+
+    /**
+     * Gets whether change events were lost since last invoked (e.g., too
+     * many events at once), in which case watched directories should be
+     * listed again. Invoking this method resets the flag.
+     * @return <code>true</code> if a full scan is required
+     */
+    public synchronized boolean isFullScanRequired() {
+        boolean required = fullScanRequired;
+        fullScanRequired = false;
+        return required;
+    }
+
+    /**
+     * Waits up to the given time for change events and returns the index
+     * files affected by them.  A job status file change is reported as a
+     * change of its suite index file.  Returns as soon as change events
+     * are received.  Never waits for events to settle: index files 
+     * affected by a burst of events still going on are held and
+     * returned by a later invocation, once no events were received
+     * for a short time (or after at most a second for bursts not
+     * settling).  To be invoked by a single thread.
+     * @param maxWait maximum time to wait for events, in milliseconds
+     * @return affected index files (never <code>null</code>)
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Set<File> awaitChanges(long maxWait) throws InterruptedException {
+        if (watchService == null) {
+            Thread.sleep(maxWait);
+            return new HashSet<>();
+        }
+        try {
+            WatchKey key = watchService.poll(maxWait, TimeUnit.MILLISECONDS);
+            while (key != null) {
+                long now = System.currentTimeMillis();
+                if (pendingFiles.isEmpty()) {
+                    firstEventTime = now;
+                }
+                lastEventTime = now;
+                handleEvents(key, pendingFiles);
+                key = watchService.poll();
+            }
+        } catch (ClosedWatchServiceException e) {
+            LOG.debug("Watch service closed.");
+        }
+        long now = System.currentTimeMillis();
+        if (pendingFiles.isEmpty() 
+                || (now - lastEventTime < EVENTS_SETTLE_TIME
+                        && now - firstEventTime < EVENTS_MAX_DELAY)) {
+            return new HashSet<>();
+        }
+        Set<File> files = pendingFiles;
+        pendingFiles = new HashSet<>();
+        return files;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (WatchKey key : watchedDirs.values()) {
+            key.cancel();
+        }
+        watchedDirs.clear();
+        polledDirs.clear();
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                LOG.error("Could not close file watch service.", e);
+            }
+        }
+    }
+
+    private synchronized void handleEvents(WatchKey key, Set<File> files) {
+        Path dir = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                LOG.debug("Too many file events, full scan required: " + dir);
+                fullScanRequired = true;
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            String name = path.getFileName().toString();
+            if (event.kind() == ENTRY_CREATE && STATUS_DIR.equals(name)
+                    && watchedDirs.containsKey(dir)
+                    && Files.isDirectory(path)
+                    && !watchedDirs.containsKey(path)
+                    && !polledDirs.contains(path)) {
+                // New job status directory for existing index directory.
+                if (!register(path, getFileStoreType(path))) {
+                    polledDirs.add(path);
+                }
+                fullScanRequired = true;
+            } else if (name.endsWith(INDEX_EXTENSION)) {
+                files.add(path.toFile());
+            } else if (name.endsWith(STATUS_EXTENSION)) {
+                File indexFile = toIndexFile(path.toFile());
+                if (indexFile != null) {
+                    files.add(indexFile);
+                }
+            }
+        }
+        if (!key.reset()) {
+            LOG.debug("Directory no longer watched: " + dir);
+            watchedDirs.remove(dir);
+        }
+    }
+
+    private String getFileStoreType(Path dir) {
+        try {
+            return Files.getFileStore(dir).type();
+        } catch (IOException e) {
+            LOG.debug("Cannot get file store type of " + dir, e);
+            return null;
+        }
+    }
+
+    private boolean register(Path dir, String type) {
+        if (watchService == null) {
+            return false;
+        }
+        if (ArrayUtils.contains(
+                POLLED_FILE_STORE_TYPES, StringUtils.lowerCase(type))) {
+            LOG.info("Directory on \"" + type + "\" file system will be "
+                    + "polled for changes: " + dir);
+            return false;
+        }
+        try {
+            WatchKey key = dir.register(watchService,
+                    ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            watchedDirs.put(dir, key);
+            LOG.debug("Watching directory for changes: " + dir);
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            LOG.info("Cannot watch directory for changes, it will be polled "
+                    + "instead: " + dir + " (" + e.getMessage() + ")");
+            return false;
+        }
+    }
+
+    /**
+     * Resolves the suite index file a job status file belongs to.
+     * Job status files are named after the suite and job ids,
+     * separated by a double underscore.  Since a double underscore can
+     * also be part of an escaped suite id, the index file is looked for
+     * at each occurrence.
+     * @param statusFile job status file
+     * @return index file or <code>null</code> if none found
+     */
+    static File toIndexFile(File statusFile) {
+        File statusDir = statusFile.getParentFile();
+        if (statusDir == null || statusDir.getParentFile() == null) {
+            return null;
+        }
+        File indexDir = statusDir.getParentFile();
+        String name = statusFile.getName();
+        int idx = name.indexOf("__");
+        while (idx > 0) {
+            File indexFile = new File(
+                    indexDir, name.substring(0, idx) + INDEX_EXTENSION);
+            if (indexFile.isFile()) {
+                return indexFile;
+            }
+            idx = name.indexOf("__", idx + 1);
+        }
+        return null;
+    }
+}
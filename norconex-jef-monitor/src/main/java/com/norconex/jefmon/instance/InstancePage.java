@@ -24,6 +24,11 @@ public class InstancePage extends JEFMonPage {
 
     private static final long serialVersionUID = 1559009691638968793L;
 
+    /** Page parameter holding how the job tree is viewed. */
+    public static final String PARAM_VIEW = "view";
+    /** View parameter value for scrolling the job tree instead of paging. */
+    public static final String VIEW_SCROLL = "scroll";
+
     public InstancePage() {
         super();
     }
@@ -42,7 +47,10 @@ public class InstancePage extends JEFMonPage {
     @Override
     protected void onInitialize() {
         super.onInitialize();
-        add(new InstancePanel("treePanel"));
+        PageParameters params = getPageParameters();
+        boolean scroll = params != null && VIEW_SCROLL.equals(
+                params.get(PARAM_VIEW).toOptionalString());
+        add(new InstancePanel("treePanel", scroll));
     }
 
 }
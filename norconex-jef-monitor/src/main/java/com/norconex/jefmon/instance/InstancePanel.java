@@ -17,19 +17,17 @@ package com.norconex.jefmon.instance;
 import java.util.HashSet;
 import java.util.Set;
 
-import org.apache.wicket.ajax.AbstractAjaxTimerBehavior;
 import org.apache.wicket.ajax.AjaxRequestTarget;
-import org.apache.wicket.extensions.markup.html.repeater.tree.AbstractTree;
 import org.apache.wicket.markup.html.WebMarkupContainer;
 import org.apache.wicket.markup.html.basic.Label;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.util.SetModel;
-import org.apache.wicket.util.time.Duration;
 
 import com.norconex.jefmon.JEFMonPanel;
 import com.norconex.jefmon.instance.tree.JobStatusTreeNode;
 import com.norconex.jefmon.instance.tree.JobTreeProvider;
 import com.norconex.jefmon.instance.tree.JobsTableTree;
+import com.norconex.jefmon.instance.tree.VirtualJobTree;
 
 @SuppressWarnings("nls")
 public class InstancePanel extends JEFMonPanel {
@@ -40,6 +38,15 @@ public class InstancePanel extends JEFMonPanel {
     public static final String TREE_DIALOG_ID = "dialog";
 
     public InstancePanel(String id) {
+        this(id, false);
+    }
+    /**
+     * Creates an instance panel.
+     * @param id component id
+     * @param scroll <code>true</code> to scroll through all root suites 
+     *        of a {@link VirtualJobTree} instead of paging them
+     */
+    public InstancePanel(String id, boolean scroll) {
         super(id);
         
         WebMarkupContainer treeDialogWrapper = 
@@ -50,31 +57,61 @@ public class InstancePanel extends JEFMonPanel {
         
         add(new Label("name", getJEFMonConfig().getInstanceName()));
         
-        final JobTreeProvider provider = 
-                new JobTreeProvider(getJobSuitesStatusesMonitor());
+        final JobTreeProvider provider = new JobTreeProvider();
 
         IModel<Set<JobStatusTreeNode>> state = new SetModel<JobStatusTreeNode>(
                 new HashSet<JobStatusTreeNode>());
-        final AbstractTree<JobStatusTreeNode> tree = createTree(provider, state);
+        final JobsTableTree tree = createTree(provider, state);
         add(tree);
 
-        add(new InstanceToolbar("toolbar", tree));
+        final VirtualJobTree virtualTree = 
+                new VirtualJobTree("virtualTree", tree);
+        add(virtualTree);
+        tree.setVisible(!scroll);
+        virtualTree.setVisible(scroll);
+
+        final InstanceToolbar toolbar = new InstanceToolbar(
+                "toolbar", tree, scroll ? virtualTree : tree);
+        add(toolbar);
 
-        add(new AbstractAjaxTimerBehavior(Duration.seconds(
-                getJEFMonConfig().getDefaultRefreshInterval())) {
+        virtualTree.add(new JobStatusPushBehavior("tree", 
+                getJEFMonConfig().getDefaultRefreshInterval(), true) {
+            private static final long serialVersionUID = 2712394071857318842L;
+            @Override
+            protected void onRefresh(AjaxRequestTarget target) {
+                target.appendJavaScript("JEFMonVirtualTree.reload('" 
+                        + virtualTree.getMarkupId() + "');");
+            }
+            @Override
+            protected boolean isFiltered() {
+                // Only rows scrolled to are in the browser.
+                return true;
+            }
+        });
+        tree.add(new JobStatusPushBehavior("tree", 
+                getJEFMonConfig().getDefaultRefreshInterval(), true) {
             private static final long serialVersionUID = -8417817690758833175L;
             @Override
-            protected void onTimer(AjaxRequestTarget target) {
-                target.add(tree);
+            protected void onRefresh(AjaxRequestTarget target) {
+                tree.refresh(target);
+                toolbar.refreshPaging(target);
+            }
+            @Override
+            protected long getGeneration() {
+                return tree.getRenderedGeneration();
+            }
+            @Override
+            protected boolean isFiltered() {
+                return tree.getProvider().isSearching();
             }
         });
     }
 
 
-    private AbstractTree<JobStatusTreeNode> createTree(JobTreeProvider provider,
+    private JobsTableTree createTree(JobTreeProvider provider,
             IModel<Set<JobStatusTreeNode>> state) {
         final JobsTableTree tree = new JobsTableTree(
-                "treeTable", provider, Integer.MAX_VALUE, state);
+                "treeTable", provider, state);
         return tree;
     }
 }
@@ -14,16 +14,40 @@
  */
 package com.norconex.jefmon.instance;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 
+import org.apache.wicket.Component;
 import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.ajax.attributes.AjaxRequestAttributes;
+import org.apache.wicket.ajax.attributes.ThrottlingSettings;
+import org.apache.wicket.ajax.form.AjaxFormComponentUpdatingBehavior;
+import org.apache.wicket.ajax.form.OnChangeAjaxBehavior;
 import org.apache.wicket.ajax.markup.html.AjaxLink;
-import org.apache.wicket.extensions.markup.html.repeater.tree.AbstractTree;
+import org.apache.wicket.ajax.markup.html.navigation.paging.AjaxPagingNavigator;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.html.form.DropDownChoice;
+import org.apache.wicket.markup.html.form.EnumChoiceRenderer;
+import org.apache.wicket.markup.html.form.TextField;
+import org.apache.wicket.markup.html.link.BookmarkablePageLink;
 import org.apache.wicket.markup.html.panel.Panel;
+import org.apache.wicket.model.PropertyModel;
+import org.apache.wicket.model.ResourceModel;
+import org.apache.wicket.model.StringResourceModel;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.util.time.Duration;
 
+import com.norconex.jef4.status.JobState;
 import com.norconex.jefmon.JEFMonConfig;
 import com.norconex.jefmon.JEFMonPanel;
 import com.norconex.jefmon.instance.tree.JobStatusTreeNode;
+import com.norconex.jefmon.instance.tree.JobTreeProvider;
+import com.norconex.jefmon.instance.tree.JobsTableTree;
+import com.norconex.jefmon.instance.tree.VirtualJobTree;
 import com.norconex.jefmon.settings.panels.IdentityPanel;
 import com.norconex.jefmon.settings.panels.JobActionsPanel;
 import com.norconex.jefmon.settings.panels.JobLocationsPanel;
@@ -34,25 +58,126 @@ public class InstanceToolbar extends JEFMonPanel {
 
     private static final long serialVersionUID = 8688539156220717257L;
 
-    public InstanceToolbar(String id, final AbstractTree<JobStatusTreeNode> tree) {
+    private static final List<Integer> ROOTS_PER_PAGE_CHOICES = 
+            Arrays.asList(10, 25, 50, 100, 250);
+    // Delay after the last key typed before searching.
+    private static final Duration SEARCH_DELAY = Duration.milliseconds(300);
+
+    private final WebMarkupContainer paging;
+    
+    /**
+     * Creates an instance toolbar.
+     * @param id component id
+     * @param tree job status tree holding expanded jobs, searches, 
+     *        and paging
+     * @param view component showing the tree, either the tree itself,
+     *        paged by root suites, or a {@link VirtualJobTree} scrolling
+     *        through all root suites
+     */
+    public InstanceToolbar(
+            String id, final JobsTableTree tree, final Component view) {
         super(id);
+        final boolean paged = view == tree;
+
+        // --- Root suites paging ---
+        paging = new WebMarkupContainer("paging");
+        paging.setOutputMarkupId(true);
+        add(paging);
+        paging.add(new AjaxPagingNavigator("navigator", tree) {
+            private static final long serialVersionUID = 3418420371914937003L;
+            @Override
+            protected void onConfigure() {
+                super.onConfigure();
+                setVisible(tree.getPageCount() > 1);
+            }
+        });
+        DropDownChoice<Integer> rootsPerPage = new DropDownChoice<>(
+                "rootsPerPage", new PropertyModel<Integer>(
+                        tree.getProvider(), "rootsPerPage"), 
+                ROOTS_PER_PAGE_CHOICES);
+        rootsPerPage.setVisible(paged);
+        rootsPerPage.add(new AjaxFormComponentUpdatingBehavior("onchange") {
+            private static final long serialVersionUID = 1637418207339409151L;
+            @Override
+            protected void onUpdate(AjaxRequestTarget target) {
+                target.add(tree);
+                target.add(paging);
+            }
+        });
+        paging.add(rootsPerPage);
+        paging.add(new Label("searchCount", new StringResourceModel(
+                "search.count", this, null, new PropertyModel<Integer>(
+                        tree.getProvider(), "searchResult.matchCount"))) {
+            private static final long serialVersionUID = -707309117399357413L;
+            @Override
+            protected void onConfigure() {
+                super.onConfigure();
+                setVisible(tree.getProvider().isSearching());
+            }
+        });
+
+        // --- Job search ---
+        TextField<String> searchText = new TextField<>("searchText", 
+                new PropertyModel<String>(tree.getProvider(), "searchText"));
+        searchText.add(new OnChangeAjaxBehavior() {
+            private static final long serialVersionUID = -2528813838163432197L;
+            @Override
+            protected void updateAjaxAttributes(
+                    AjaxRequestAttributes attributes) {
+                super.updateAjaxAttributes(attributes);
+                attributes.setThrottlingSettings(new ThrottlingSettings(
+                        getComponent().getMarkupId(), SEARCH_DELAY, true));
+            }
+            @Override
+            protected void onUpdate(AjaxRequestTarget target) {
+                target.add(view);
+                target.add(paging);
+            }
+        });
+        add(searchText);
+        DropDownChoice<JobState> searchState = new DropDownChoice<>(
+                "searchState", new PropertyModel<JobState>(
+                        tree.getProvider(), "searchState"),
+                Arrays.asList(JobState.values()),
+                new EnumChoiceRenderer<JobState>(this));
+        searchState.setNullValid(true);
+        searchState.add(new AjaxFormComponentUpdatingBehavior("onchange") {
+            private static final long serialVersionUID = 4119766419617432473L;
+            @Override
+            protected void onUpdate(AjaxRequestTarget target) {
+                target.add(view);
+                target.add(paging);
+            }
+        });
+        add(searchState);
 
         add(new AjaxLink<String>("expandAll") {
             private static final long serialVersionUID = 2456949869983267747L;
             @Override
             public void onClick(AjaxRequestTarget target) {
-                Iterator<? extends JobStatusTreeNode> it = 
-                        tree.getProvider().getRoots();
+                // Expands all jobs having children at once from suite
+                // job indexes instead of walking the tree.
+                Set<JobStatusTreeNode> nodes = new HashSet<>();
+                JobTreeProvider provider = tree.getProvider();
+                Iterator<? extends JobStatusTreeNode> it = paged
+                        ? provider.getRoots() 
+                        : provider.getRoots(0, provider.size());
                 while (it.hasNext()) {
-                    expand(it.next());
-                }
-                target.add(tree);
-            }
-            private void expand(JobStatusTreeNode node) {
-                tree.expand(node);
-                for (JobStatusTreeNode childNode : node.getChildren()) {
-                    expand(childNode);
+                    JobStatusTreeNode root = it.next();
+                    SuiteJobIndex index = root.getSuiteJobIndex();
+                    if (index == null) {
+                        continue;
+                    }
+                    for (String jobId : index.getParentJobIds()) {
+                        nodes.add(new JobStatusTreeNode(
+                                root.getSuiteId(), jobId, 
+                                jobId.equals(root.getJobId())));
+                    }
                 }
+                tree.modelChanging();
+                tree.getModelObject().addAll(nodes);
+                tree.modelChanged();
+                target.add(view);
             }
         });
         
@@ -60,21 +185,24 @@ public class InstanceToolbar extends JEFMonPanel {
             private static final long serialVersionUID = 4973372951011393621L;
             @Override
             public void onClick(AjaxRequestTarget target) {
-                Iterator<? extends JobStatusTreeNode> it = 
-                        tree.getProvider().getRoots();
-                while (it.hasNext()) {
-                    collapse(it.next());
-                }
-                target.add(tree);
-            }
-            private void collapse(JobStatusTreeNode node) {
-                tree.collapse(node);
-                for (JobStatusTreeNode childNode : node.getChildren()) {
-                    collapse(childNode);
-                }
+                tree.modelChanging();
+                tree.getModelObject().clear();
+                tree.getProvider().collapseSearch();
+                tree.modelChanged();
+                target.add(view);
             }
         });
 
+        PageParameters viewParams = new PageParameters();
+        if (paged) {
+            viewParams.set(InstancePage.PARAM_VIEW, InstancePage.VIEW_SCROLL);
+        }
+        BookmarkablePageLink<Void> viewMode = new BookmarkablePageLink<>(
+                "viewMode", InstancePage.class, viewParams);
+        viewMode.add(new Label("label", new ResourceModel(
+                paged ? "btn.scrollview" : "btn.pagedview")));
+        add(viewMode);
+
         add(new AjaxLink<String>("name") {
             private static final long serialVersionUID = 6166025920271559843L;
             @Override
@@ -121,4 +249,13 @@ public class InstanceToolbar extends JEFMonPanel {
             }
         });
     }
+
+    /**
+     * Adds the root suites paging controls to the given target,
+     * for when the number of root suites may have changed.
+     * @param target AJAX request target
+     */
+    public void refreshPaging(AjaxRequestTarget target) {
+        target.add(paging);
+    }
 }
@@ -15,25 +15,34 @@
 package com.norconex.jefmon.instance;
 
 import java.io.File;
-import java.io.FilenameFilter;
-import java.io.IOException;
 import java.io.Serializable;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
-import org.apache.commons.io.filefilter.SuffixFileFilter;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
-import org.apache.wicket.util.lang.Objects;
+import org.apache.wicket.Application;
 
-import com.norconex.commons.lang.Sleeper;
 import com.norconex.jef4.status.JobSuiteStatusSnapshot;
+import com.norconex.jefmon.JEFMonApplication;
 import com.norconex.jefmon.JEFMonConfig;
+import com.norconex.jefmon.instance.ScanLaneStatus.Health;
 
 public class JEFMonInstance implements Serializable {
 
@@ -43,6 +52,10 @@ public class JEFMonInstance implements Serializable {
             JEFMonInstance.class);
     
     public static final long DEFAULT_SCAN_INTERVAL = 5 * 1000;
+    // How often the monitor checks for file changes and due lanes.
+    private static final long TICK_INTERVAL = 250;
+    // How long to wait for monitor threads to end when stopping.
+    private static final long STOP_TIMEOUT = 5 * 1000;
     
     private final Monitor monitor;
 
@@ -55,39 +68,153 @@ public class JEFMonInstance implements Serializable {
         this.monitor = new Monitor(config, scanInterval);
     }
 
+    /**
+     * Gets the suite statuses from the last scan.  Callers needing
+     * to access more than one suite should obtain them from the same
+     * {@link SuiteStatuses} to get consistent results.
+     * @return suite statuses (never <code>null</code>)
+     */
+    public SuiteStatuses getSuiteStatuses() {
+        return monitor.getStatuses();
+    }
+    /**
+     * Gets the current suite statuses generation number.
+     * @return generation number
+     */
+    public long getGeneration() {
+        return getSuiteStatuses().getGeneration();
+    }
+
     public Collection<JobSuiteStatusSnapshot> getJobSuitesStatuses() {
-        return monitor.getStatuses().values();
+        return getSuiteStatuses().getSuites();
     }
 
     public JobSuiteStatusSnapshot getJobSuiteStatuses(String suiteId) {
-        for (JobSuiteStatusSnapshot snapshot : getJobSuitesStatuses()) {
-            if (Objects.equal(snapshot.getRoot().getJobId(), suiteId)) {
-                return snapshot;
-            }
-        }
-        return null;
+        return getSuiteStatuses().getSuite(suiteId);
     }
 
-    
+    /**
+     * Gets the job index of a suite, for navigating its jobs.
+     * @param suiteId suite id (root job id)
+     * @return suite job index or <code>null</code> if no such suite
+     */
+    public SuiteJobIndex getSuiteJobIndex(String suiteId) {
+        return getSuiteStatuses().getJobIndex(suiteId);
+    }
+
+    /**
+     * Gets statistics about the last scan of a monitored path.
+     * @return scan statistics or <code>null</code> if no scan occurred yet
+     */
+    public ScanStatistics getLastScanStatistics() {
+        return monitor.getLastScanStatistics();
+    }
+
+    /**
+     * Gets the scanning status of each monitored path.
+     * @return scan lane statuses (never <code>null</code>)
+     */
+    public List<ScanLaneStatus> getScanLaneStatuses() {
+        return monitor.getScanLaneStatuses();
+    }
+
+    /**
+     * Gets scan totals since monitoring started.
+     * @return scan telemetry copy (never <code>null</code>)
+     */
+    public ScanTelemetry getScanTelemetry() {
+        return monitor.getTelemetry();
+    }
+
+    /**
+     * Adds a listener notified every time a new generation of suite 
+     * statuses is published.
+     * @param listener suite statuses listener
+     */
+    public void addSuiteStatusesListener(ISuiteStatusesListener listener) {
+        monitor.listeners.add(listener);
+    }
+    /**
+     * Removes a suite statuses listener.
+     * @param listener suite statuses listener
+     */
+    public void removeSuiteStatusesListener(
+            ISuiteStatusesListener listener) {
+        monitor.listeners.remove(listener);
+    }
+
+    /**
+     * Starts monitoring on background threads.
+     * @throws IllegalStateException if already monitoring
+     */
     public void startMonitoring() {
-        new Thread(monitor).start();
+        monitor.start();
     }
 
+    /**
+     * Stops monitoring, interrupting scans in progress.  Returns once
+     * monitor threads ended or after a few seconds.
+     */
     public void stopMonitoring() {
-        monitor.stopMe();
+        monitor.stop();
+    }
+
+    /**
+     * Gets whether monitoring was started and not stopped.
+     * @return <code>true</code> if monitoring
+     */
+    public boolean isMonitoring() {
+        return monitor.isRunning();
+    }
+
+    // Suite statuses are not serialized: resolve to the application
+    // instance being monitored.
+    private Object readResolve() {
+        if (Application.exists()
+                && Application.get() instanceof JEFMonApplication) {
+            JEFMonInstance instance = ((JEFMonApplication) 
+                    Application.get()).getJobSuitesStatusesMonitor();
+            if (instance != null) {
+                return instance;
+            }
+        }
+        return this;
     }
 
     private static class Monitor implements Runnable, Serializable {
 
         private static final long serialVersionUID = 2775523547279413259L;
         
-        private static final Map<File, JobSuiteStatusSnapshot> STATUSES =
-                Collections.synchronizedMap(
-                        new HashMap<File, JobSuiteStatusSnapshot>());
         private final JEFMonConfig cfg;
-        private boolean running;
-        private boolean stopme;
         private final long interval;
+        private transient volatile boolean running;
+        // Scan lanes by monitored path (monitor thread only).
+        private final transient Map<File, ScanLane> lanes =
+                new LinkedHashMap<>();
+        // Same lanes, for other threads.
+        private transient volatile List<ScanLane> laneList =
+                Collections.emptyList();
+        private transient IndexFileWatcher watcher;
+        private transient ScheduledExecutorService scheduler;
+        private transient ExecutorService laneRunner;
+        private transient ThreadFactory loaderThreads;
+        private transient volatile SuiteStatuses statuses =
+                SuiteStatuses.EMPTY;
+        private volatile ScanStatistics lastScanStatistics;
+        private transient volatile ScanTelemetry telemetry =
+                new ScanTelemetry();
+        private final transient List<ISuiteStatusesListener> listeners =
+                new CopyOnWriteArrayList<>();
+        // Published statuses listeners were not notified of yet, in
+        // generation order.
+        private final transient Queue<SuiteStatuses> unnotified =
+                new ConcurrentLinkedQueue<>();
+        // Last statuses listeners were notified of (guarded by notifyLock).
+        private transient SuiteStatuses notified = SuiteStatuses.EMPTY;
+        private final transient Object notifyLock = new Object();
+        // Guards starting and stopping, apart from publishing, so stopping
+        // does not block threads it waits for.
+        private final transient Object lifecycleLock = new Object();
         
         public Monitor(JEFMonConfig cfg, long interval) {
             super();
@@ -95,55 +222,231 @@ public class JEFMonInstance implements Serializable {
             this.interval = interval;
         }
 
-        private Map<File, JobSuiteStatusSnapshot> getStatuses() {
-            return STATUSES;
+        private SuiteStatuses getStatuses() {
+            if (statuses == null) {
+                return SuiteStatuses.EMPTY;
+            }
+            return statuses;
         }
-        
-        @Override
-        public void run() {
+        private ScanStatistics getLastScanStatistics() {
+            return lastScanStatistics;
+        }
+        private ScanTelemetry getTelemetry() {
+            if (telemetry == null) {
+                return new ScanTelemetry();
+            }
+            return telemetry.copy();
+        }
+        private List<ScanLaneStatus> getScanLaneStatuses() {
+            List<ScanLaneStatus> laneStatuses = new ArrayList<>();
+            if (laneList != null) {
+                for (ScanLane lane : laneList) {
+                    laneStatuses.add(lane.getStatus());
+                }
+            }
+            return laneStatuses;
+        }
+        private boolean isRunning() {
+            return running;
+        }
+
+        // A single scheduler thread runs the monitor at a fixed delay,
+        // so runs never overlap.  Lanes are scanned on their own threads,
+        // at most one scan per lane at any time.
+        private void start() {
+            synchronized (lifecycleLock) {
+                doStart();
+            }
+        }
+        private void doStart() {
             if (running) {
                 throw new IllegalStateException(
                         "JEFMonInstance already running.");
             }
+            watcher = new IndexFileWatcher();
+            telemetry = new ScanTelemetry();
+            laneRunner = Executors.newCachedThreadPool(
+                    new BasicThreadFactory.Builder()
+                            .namingPattern("jefmon-lane-%d")
+                            .daemon(true)
+                            .build());
+            loaderThreads = new BasicThreadFactory.Builder()
+                    .namingPattern("jefmon-scan-%d")
+                    .daemon(true)
+                    .build();
+            scheduler = Executors.newSingleThreadScheduledExecutor(
+                    new BasicThreadFactory.Builder()
+                            .namingPattern("jefmon-monitor-%d")
+                            .daemon(true)
+                            .build());
             running = true;
-            stopme = false;
-            while (!stopme) {
-                if (cfg.getMonitoredPaths() != null) {
-                    syncIndexFiles();
-                }
-                Sleeper.sleepMillis(interval);
+            scheduler.scheduleWithFixedDelay(
+                    this, 0, TICK_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+
+        private void stop() {
+            synchronized (lifecycleLock) {
+                doStop();
+            }
+        }
+        private void doStop() {
+            if (!running) {
+                return;
             }
             running = false;
+            scheduler.shutdownNow();
+            laneRunner.shutdownNow();
+            try {
+                if (!scheduler.awaitTermination(
+                        STOP_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    LOG.warn("Monitor thread did not stop in time.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (ScanLane lane : lanes.values()) {
+                lane.close();
+            }
+            lanes.clear();
+            laneList = Collections.emptyList();
+            watcher.close();
         }
-        
-        public void stopMe() {
-            stopme = true;
+
+        @Override
+        public void run() {
+            if (!running) {
+                return;
+            }
+            // Exceptions would cancel further runs: log them instead.
+            try {
+                syncLanes();
+                dispatchChanges(watcher.awaitChanges(0));
+                startDueLanes();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                LOG.error("Could not check monitored paths.", e);
+            }
         }
-        
-        private void syncIndexFiles() {
-            Set<File> files = new HashSet<>();
-            for (File file : cfg.getMonitoredPaths()) {
-                if (!file.exists()) {
-                    continue;
+
+        // Creates lanes for new monitored paths and closes those of paths
+        // no longer monitored.
+        private void syncLanes() {
+            File[] paths = cfg.getMonitoredPaths();
+            if (paths == null) {
+                paths = new File[] {};
+            }
+            Map<File, ScanLane> oldLanes = new HashMap<>(lanes);
+            lanes.clear();
+            for (File path : paths) {
+                File file = path.getAbsoluteFile();
+                ScanLane lane = oldLanes.remove(file);
+                if (lane == null) {
+                    lane = new ScanLane(
+                            file, cfg, watcher, interval, loaderThreads);
+                }
+                lanes.put(file, lane);
+            }
+            laneList = Collections.unmodifiableList(
+                    new ArrayList<>(lanes.values()));
+            if (!oldLanes.isEmpty()) {
+                for (ScanLane lane : oldLanes.values()) {
+                    lane.close();
+                }
+                watcher.retain(paths, cfg.getScanDepth() > 0);
+                publish();
+            }
+        }
+
+        private void dispatchChanges(Set<File> changedFiles) {
+            if (watcher.isFullScanRequired()) {
+                for (ScanLane lane : lanes.values()) {
+                    lane.requestFullScan();
                 }
-                if (file.isFile()) {
-                    files.add(file);
-                } else if (file.isDirectory()) {
-                    files.addAll(Arrays.asList(file.listFiles(
-                            (FilenameFilter) new SuffixFileFilter(".index"))));
+            }
+            for (File file : changedFiles) {
+                for (ScanLane lane : lanes.values()) {
+                    if (lane.accepts(file)) {
+                        lane.addChange(file);
+                    }
+                }
+            }
+        }
+
+        private void startDueLanes() {
+            long now = System.currentTimeMillis();
+            for (final ScanLane lane : lanes.values()) {
+                if (lane.isScanning()) {
+                    lane.checkTimeout(now, cfg.getScanTimeout());
+                } else if (lane.isDue(now) && lane.startScanning()) {
+                    laneRunner.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            runLane(lane);
+                        }
+                    });
                 }
             }
-            // remove suite statuses those that no longer have an index file.
-            STATUSES.keySet().retainAll(files);
-
-            // add/replace suite statuses
-            for (File file : files) {
-                try {
-                    STATUSES.put(file, 
-                            JobSuiteStatusSnapshot.newSnapshot(file));
-                } catch (IOException e) {
-                    LOG.error("Cannot sync suite statuses for index file: "
-                            + file, e);
+        }
+
+        private void runLane(ScanLane lane) {
+            ScanStatistics previousStatistics = lane.getLastScanStatistics();
+            lane.run();
+            ScanStatistics statistics = lane.getLastScanStatistics();
+            boolean failed = lane.getStatus().getHealth() == Health.FAILED;
+            if (failed) {
+                telemetry.recordFailure(new Date());
+            } else if (statistics != previousStatistics) {
+                lastScanStatistics = statistics;
+                telemetry.recordScan(statistics);
+            }
+            publish();
+            if (!failed && statistics != previousStatistics
+                    && statistics.getErrors() == 0) {
+                telemetry.recordSuccess(
+                        getStatuses().getGeneration(), new Date());
+            }
+        }
+
+        // Publishes a new generation of suite statuses from all lanes,
+        // only if they changed, then notifies listeners.
+        private void publish() {
+            synchronized (this) {
+                Map<File, JobSuiteStatusSnapshot> snapshots = 
+                        new HashMap<>();
+                for (ScanLane lane : laneList) {
+                    snapshots.putAll(lane.getSnapshots());
+                }
+                SuiteStatuses previous = getStatuses();
+                if (previous.isSame(snapshots)) {
+                    return;
+                }
+                statuses = new SuiteStatuses(previous.getGeneration() + 1,
+                        new Date(), snapshots, previous);
+                unnotified.add(statuses);
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Published suite statuses: " + statuses);
+                }
+            }
+            notifyListeners();
+        }
+
+        // Listeners are notified outside the publishing lock, so they
+        // do not hold back scans, one generation at a time in order.
+        private void notifyListeners() {
+            synchronized (notifyLock) {
+                SuiteStatuses current;
+                while ((current = unnotified.poll()) != null) {
+                    for (ISuiteStatusesListener listener : listeners) {
+                        try {
+                            listener.suiteStatusesPublished(
+                                    notified, current);
+                        } catch (RuntimeException e) {
+                            LOG.error("Suite statuses listener failed: "
+                                    + listener, e);
+                        }
+                    }
+                    notified = current;
                 }
             }
         }
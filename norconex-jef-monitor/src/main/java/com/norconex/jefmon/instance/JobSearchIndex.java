@@ -0,0 +1,159 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.norconex.jef4.status.IJobStatus;
+import com.norconex.jef4.status.JobState;
+
+/**
+ * Index of the jobs of all suites of a generation, for finding jobs by
+ * id or state without walking suite snapshots.  Distinct job ids are kept
+ * lower-cased and sorted: ids starting with a text are found by binary 
+ * search and ids containing a text by scanning these ids only.
+ * Obtained from {@link SuiteStatuses#getSearchIndex()}.
+ */
+public final class JobSearchIndex {
+
+    /** Search text prefix for matching job ids starting with the text. */
+    public static final String PREFIX_MARKER = "^";
+
+    private final SuiteStatuses statuses;
+    // Distinct lower-cased job ids and the jobs having each of them.
+    private final String[] keys;
+    private final Job[][] jobs;
+    private final Map<JobState, List<Job>> byState = 
+            new EnumMap<>(JobState.class);
+
+    public JobSearchIndex(SuiteStatuses statuses) {
+        super();
+        this.statuses = statuses;
+        Map<String, List<Job>> byKey = new HashMap<>();
+        for (String suiteId : statuses.getSuiteIds()) {
+            SuiteJobIndex index = statuses.getJobIndex(suiteId);
+            for (String jobId : index.getJobIds()) {
+                Job job = new Job(suiteId, jobId, 
+                        getState(index.getJobStatus(jobId)));
+                String key = toKey(jobId);
+                List<Job> keyJobs = byKey.get(key);
+                if (keyJobs == null) {
+                    keyJobs = new ArrayList<>(1);
+                    byKey.put(key, keyJobs);
+                }
+                keyJobs.add(job);
+                List<Job> stateJobs = byState.get(job.state);
+                if (stateJobs == null) {
+                    stateJobs = new ArrayList<>();
+                    byState.put(job.state, stateJobs);
+                }
+                stateJobs.add(job);
+            }
+        }
+        keys = byKey.keySet().toArray(new String[byKey.size()]);
+        Arrays.sort(keys);
+        jobs = new Job[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            List<Job> keyJobs = byKey.get(keys[i]);
+            jobs[i] = keyJobs.toArray(new Job[keyJobs.size()]);
+        }
+    }
+
+    /**
+     * Finds jobs whose id contains the given text (ignoring case) and
+     * having the given state.  When the text starts with
+     * {@link #PREFIX_MARKER}, only job ids starting with the rest of the
+     * text are matched.
+     * @param text text to find in job ids (<code>null</code> or blank
+     *        for any job id)
+     * @param state job state (<code>null</code> for any state)
+     * @return matching jobs
+     */
+    public JobSearchResult search(String text, JobState state) {
+        String query = toKey(StringUtils.trimToEmpty(text));
+        boolean prefix = query.startsWith(PREFIX_MARKER);
+        if (prefix) {
+            query = query.substring(PREFIX_MARKER.length());
+        }
+        List<Job> found = new ArrayList<>();
+        if (query.isEmpty()) {
+            if (state == null) {
+                for (Job[] keyJobs : jobs) {
+                    found.addAll(Arrays.asList(keyJobs));
+                }
+            } else if (byState.containsKey(state)) {
+                found.addAll(byState.get(state));
+            }
+        } else if (prefix) {
+            int i = Arrays.binarySearch(keys, query);
+            if (i < 0) {
+                i = -i - 1;
+            }
+            for (; i < keys.length && keys[i].startsWith(query); i++) {
+                addJobs(found, jobs[i], state);
+            }
+        } else {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].contains(query)) {
+                    addJobs(found, jobs[i], state);
+                }
+            }
+        }
+        JobSearchResult result = new JobSearchResult();
+        for (Job job : found) {
+            result.add(statuses.getJobIndex(job.suiteId), job.suiteId, 
+                    job.jobId);
+        }
+        result.sort();
+        return result;
+    }
+
+    private void addJobs(List<Job> found, Job[] keyJobs, JobState state) {
+        for (Job job : keyJobs) {
+            if (state == null || state == job.state) {
+                found.add(job);
+            }
+        }
+    }
+    private static JobState getState(IJobStatus status) {
+        if (status == null || status.getState() == null) {
+            return JobState.UNKNOWN;
+        }
+        return status.getState();
+    }
+    private static String toKey(String jobId) {
+        return jobId.toLowerCase(Locale.ENGLISH);
+    }
+
+    private static class Job {
+        private final String suiteId;
+        private final String jobId;
+        private final JobState state;
+        public Job(String suiteId, String jobId, JobState state) {
+            super();
+            this.suiteId = suiteId;
+            this.jobId = jobId;
+            this.state = state;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Jobs found by a {@link JobSearchIndex}, with the suites having them
+ * and the ancestors of each job found, for showing them in the job tree.
+ */
+public final class JobSearchResult {
+
+    private final Map<String, Set<String>> matches = new HashMap<>();
+    private final Map<String, Set<String>> ancestors = new HashMap<>();
+    private List<String> suiteIds;
+    private int matchCount;
+
+    JobSearchResult() {
+        super();
+    }
+
+    void add(SuiteJobIndex index, String suiteId, String jobId) {
+        if (!getJobIds(matches, suiteId).add(jobId)) {
+            return;
+        }
+        matchCount++;
+        Set<String> suiteAncestors = getJobIds(ancestors, suiteId);
+        String parentId = index.getParentId(jobId);
+        while (parentId != null && suiteAncestors.add(parentId)) {
+            parentId = index.getParentId(parentId);
+        }
+    }
+    void sort() {
+        List<String> ids = new ArrayList<>(matches.keySet());
+        Collections.sort(ids);
+        suiteIds = Collections.unmodifiableList(ids);
+    }
+
+    /**
+     * Gets the number of jobs found.
+     * @return job count
+     */
+    public int getMatchCount() {
+        return matchCount;
+    }
+    /**
+     * Gets the ids of suites having jobs found, sorted.
+     * @return suite ids (never <code>null</code>)
+     */
+    public List<String> getSuiteIds() {
+        return suiteIds;
+    }
+    /**
+     * Gets a range of ids of suites having jobs found, sorted.
+     * @param first index of the first suite id to return
+     * @param count maximum number of suite ids to return
+     * @return suite ids (never <code>null</code>)
+     */
+    public List<String> getSuiteIds(long first, long count) {
+        int from = (int) Math.min(Math.max(0, first), suiteIds.size());
+        int to = from + (int) Math.min(
+                Math.max(0, count), suiteIds.size() - from);
+        return suiteIds.subList(from, to);
+    }
+    /**
+     * Gets whether jobs were found in a suite.
+     * @param suiteId suite id
+     * @return <code>true</code> if jobs were found
+     */
+    public boolean hasSuite(String suiteId) {
+        return matches.containsKey(suiteId);
+    }
+    /**
+     * Gets whether a job was found.
+     * @param suiteId suite id
+     * @param jobId job id
+     * @return <code>true</code> if found
+     */
+    public boolean isMatch(String suiteId, String jobId) {
+        Set<String> jobIds = matches.get(suiteId);
+        return jobIds != null && jobIds.contains(jobId);
+    }
+    /**
+     * Gets whether a job is an ancestor of a job found.
+     * @param suiteId suite id
+     * @param jobId job id
+     * @return <code>true</code> if an ancestor of a job found
+     */
+    public boolean isAncestor(String suiteId, String jobId) {
+        Set<String> jobIds = ancestors.get(suiteId);
+        return jobIds != null && jobIds.contains(jobId);
+    }
+
+    private static Set<String> getJobIds(
+            Map<String, Set<String>> jobIds, String suiteId) {
+        Set<String> suiteJobIds = jobIds.get(suiteId);
+        if (suiteJobIds == null) {
+            suiteJobIds = new HashSet<>();
+            jobIds.put(suiteId, suiteJobIds);
+        }
+        return suiteJobIds;
+    }
+}
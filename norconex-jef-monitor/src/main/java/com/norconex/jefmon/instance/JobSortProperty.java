@@ -0,0 +1,85 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance;
+
+import java.util.Date;
+
+import com.norconex.jef4.status.IJobStatus;
+import com.norconex.jef4.status.JobDuration;
+
+/**
+ * Job status properties jobs can be sorted by.  Each property gives
+ * a numeric sort key for a job status.
+ */
+public enum JobSortProperty {
+
+    /** Sorts by progress. */
+    PROGRESS {
+        @Override
+        public double getKey(IJobStatus status) {
+            return status.getProgress();
+        }
+    },
+    /** Sorts by state. */
+    STATE {
+        @Override
+        public double getKey(IJobStatus status) {
+            if (status.getState() == null) {
+                return -1;
+            }
+            return status.getState().ordinal();
+        }
+    },
+    /** Sorts by start time, jobs not started being the latest. */
+    STARTED {
+        @Override
+        public double getKey(IJobStatus status) {
+            Date start = status.getDuration().getStartTime();
+            if (start == null) {
+                return Double.MAX_VALUE;
+            }
+            return start.getTime();
+        }
+    },
+    /** 
+     * Sorts by duration, jobs not ended lasting until their last 
+     * activity and jobs not started lasting nothing.
+     */
+    DURATION {
+        @Override
+        public double getKey(IJobStatus status) {
+            JobDuration duration = status.getDuration();
+            Date start = duration.getStartTime();
+            if (start == null) {
+                return 0;
+            }
+            Date end = duration.getEndTime();
+            if (end == null) {
+                end = status.getLastActivity();
+            }
+            if (end == null) {
+                return 0;
+            }
+            return end.getTime() - start.getTime();
+        }
+    };
+
+    /**
+     * Gets the sort key of a job status for this property.
+     * @param status job status
+     * @return sort key
+     */
+    public abstract double getKey(IJobStatus status);
+}
@@ -0,0 +1,148 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import com.norconex.jef4.status.IJobStatus;
+import com.norconex.jef4.status.JobState;
+import com.norconex.jef4.status.JobSuiteStatusSnapshot;
+
+/**
+ * A job whose state, progress, or note changed between two generations
+ * of suite statuses, or that was added or removed.
+ */
+public final class JobStatusChange {
+
+    public enum Type { ADDED, UPDATED, REMOVED }
+
+    private final Type type;
+    private final String suiteId;
+    private final String jobId;
+    private final JobState state;
+    private final double progress;
+    private final String note;
+
+    private JobStatusChange(Type type, String suiteId, IJobStatus status) {
+        super();
+        this.type = type;
+        this.suiteId = suiteId;
+        this.jobId = status.getJobId();
+        this.state = status.getState();
+        this.progress = status.getProgress();
+        this.note = status.getNote();
+    }
+
+    /**
+     * Gets the jobs that changed between two generations of suite 
+     * statuses.  Suites whose snapshot did not change are skipped 
+     * without comparing their jobs.
+     * @param previous previous generation
+     * @param current current generation
+     * @return job changes (never <code>null</code>)
+     */
+    public static List<JobStatusChange> between(
+            SuiteStatuses previous, SuiteStatuses current) {
+        List<JobStatusChange> changes = new ArrayList<>();
+        for (String suiteId : current.getSuiteIds()) {
+            JobSuiteStatusSnapshot snapshot = current.getSuite(suiteId);
+            JobSuiteStatusSnapshot previousSnapshot = 
+                    previous.getSuite(suiteId);
+            if (snapshot != previousSnapshot) {
+                addChanges(changes, suiteId, previousSnapshot, snapshot);
+            }
+        }
+        for (String suiteId : previous.getSuiteIds()) {
+            if (current.getSuite(suiteId) == null) {
+                addChanges(changes, suiteId, previous.getSuite(suiteId), null);
+            }
+        }
+        return changes;
+    }
+    private static void addChanges(List<JobStatusChange> changes, 
+            String suiteId, JobSuiteStatusSnapshot previous, 
+            JobSuiteStatusSnapshot current) {
+        List<IJobStatus> previousStatuses = Collections.emptyList();
+        if (previous != null) {
+            previousStatuses = previous.getJobStatusList();
+        }
+        if (current != null) {
+            for (IJobStatus status : current.getJobStatusList()) {
+                IJobStatus previousStatus = null;
+                if (previous != null) {
+                    previousStatus = previous.getJobStatus(status.getJobId());
+                }
+                if (previousStatus == null) {
+                    changes.add(new JobStatusChange(
+                            Type.ADDED, suiteId, status));
+                } else if (status.getState() != previousStatus.getState()
+                        || status.getProgress() != previousStatus.getProgress()
+                        || !Objects.equals(
+                                status.getNote(), previousStatus.getNote())) {
+                    changes.add(new JobStatusChange(
+                            Type.UPDATED, suiteId, status));
+                }
+            }
+        }
+        for (IJobStatus status : previousStatuses) {
+            if (current == null 
+                    || current.getJobStatus(status.getJobId()) == null) {
+                changes.add(new JobStatusChange(
+                        Type.REMOVED, suiteId, status));
+            }
+        }
+    }
+
+    public Type getType() {
+        return type;
+    }
+    public String getSuiteId() {
+        return suiteId;
+    }
+    public String getJobId() {
+        return jobId;
+    }
+    /**
+     * Gets the job state.  For removed jobs, this is their last state.
+     * @return job state
+     */
+    public JobState getState() {
+        return state;
+    }
+    public double getProgress() {
+        return progress;
+    }
+    public String getNote() {
+        return note;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("type", type)
+                .append("suiteId", suiteId)
+                .append("jobId", jobId)
+                .append("state", state)
+                .append("progress", progress)
+                .append("note", note)
+                .toString();
+    }
+}
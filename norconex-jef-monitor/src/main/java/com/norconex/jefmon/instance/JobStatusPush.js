@@ -0,0 +1,210 @@
+/*
+   Copyright 2017 Norconex Inc.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+/*
+ * Applies job status changes pushed by the server over WebSocket,
+ * refreshing from the server only what cannot be updated here.
+ * Polls the server instead when WebSocket cannot be used.
+ */
+var JEFMonPush = JEFMonPush || (function($) {
+
+    var MIN_RETRY_DELAY = 1000;
+    var MAX_RETRY_DELAY = 60000;
+    var pushes = {};
+
+    function Push(cfg) {
+        this.cfg = cfg;
+        this.generation = cfg.generation;
+        this.retryDelay = MIN_RETRY_DELAY;
+        this.pollTimer = null;
+        this.refreshTimer = null;
+        this.lastRefresh = 0;
+    }
+
+    Push.prototype.open = function() {
+        var self = this;
+        var socket;
+        if (!window.WebSocket) {
+            self.poll();
+            return;
+        }
+        try {
+            var scheme = location.protocol === 'https:' ? 'wss://' : 'ws://';
+            socket = new WebSocket(scheme + location.host + self.cfg.path);
+        } catch (e) {
+            self.poll();
+            return;
+        }
+        socket.onopen = function() {
+            self.retryDelay = MIN_RETRY_DELAY;
+            self.stopPolling();
+        };
+        socket.onmessage = function(event) {
+            self.receive(JSON.parse(event.data));
+        };
+        socket.onclose = function() {
+            self.poll();
+            setTimeout(function() { self.open(); }, self.retryDelay);
+            self.retryDelay = Math.min(self.retryDelay * 2, MAX_RETRY_DELAY);
+        };
+    };
+
+    Push.prototype.receive = function(msg) {
+        if (msg.generation <= this.generation) {
+            return;
+        }
+        if (!document.getElementById(this.cfg.id)) {
+            return;
+        }
+        this.generation = msg.generation;
+        var refresh = HANDLERS[this.cfg.handler](this, msg);
+        if (refresh === 'now') {
+            this.refresh(true);
+        } else if (refresh) {
+            this.refresh(false);
+        }
+    };
+
+    // Refreshes from the server, at most once per poll interval unless
+    // immediate.
+    Push.prototype.refresh = function(immediate) {
+        var self = this;
+        var wait = self.lastRefresh + self.cfg.interval - $.now();
+        if (immediate || wait <= 0) {
+            clearTimeout(self.refreshTimer);
+            self.refreshTimer = null;
+            self.lastRefresh = $.now();
+            Wicket.Ajax.get({ u: self.cfg.callbackUrl });
+        } else if (!self.refreshTimer) {
+            self.refreshTimer = setTimeout(function() {
+                self.refreshTimer = null;
+                self.refresh(true);
+            }, wait);
+        }
+    };
+
+    Push.prototype.poll = function() {
+        var self = this;
+        if (self.cfg.poll && !self.pollTimer) {
+            self.pollTimer = setInterval(function() {
+                if (!document.getElementById(self.cfg.id)) {
+                    self.stopPolling();
+                    return;
+                }
+                self.refresh(true);
+            }, self.cfg.interval);
+        }
+    };
+
+    Push.prototype.stopPolling = function() {
+        clearInterval(this.pollTimer);
+        this.pollTimer = null;
+    };
+
+    var HANDLERS = {
+        // Updates progress and notes of tree rows shown.  New or removed
+        // jobs of suites shown, new or removed suites, and state changes
+        // are refreshed right away.  Other cells of changed rows
+        // (e.g. durations) are refreshed at most once per interval, as are
+        // changes to jobs not shown when the tree is filtered.
+        tree: function(push, msg) {
+            var rows = {};
+            var suites = {};
+            var refresh = false;
+            // Without jobs, changes since the generation shown are unknown.
+            if (!msg.jobs) {
+                return 'now';
+            }
+            $('#' + push.cfg.id).find('tr[data-jef-job]').each(function() {
+                var row = $(this);
+                var suite = row.attr('data-jef-suite');
+                rows[suite + '\n' + row.attr('data-jef-job')] = row;
+                suites[suite] = true;
+            });
+            $.each(msg.jobs, function(i, job) {
+                if (job.change !== 'UPDATED') {
+                    if (job.job === job.suite || suites[job.suite]) {
+                        refresh = 'now';
+                    } else {
+                        refresh = refresh || push.cfg.filtered;
+                    }
+                    return;
+                }
+                var row = rows[job.suite + '\n' + job.job];
+                if (!row) {
+                    refresh = refresh || push.cfg.filtered;
+                    return;
+                }
+                var percent = parseInt((job.progress * 100).toFixed(6), 10);
+                if (row.attr('data-jef-state') !== job.state
+                        || percent > 100) {
+                    refresh = 'now';
+                    return;
+                }
+                row.find('.jef-tree-progress .progress-bar')
+                        .css('width', percent + '%')
+                        .attr('aria-valuenow', percent)
+                        .find('span').text(percent + '%');
+                row.find('.jef-tree-note').text(job.note || '');
+                refresh = refresh || true;
+            });
+            return refresh;
+        },
+        // Updates the root suite counts of this instance.
+        summary: function(push, msg) {
+            var row = $('#' + push.cfg.id).find('tr[data-jef-instance]');
+            row.find('td[data-jef-state]').each(function() {
+                var cell = $(this);
+                var state = cell.attr('data-jef-state');
+                var count = msg.statuses[state] || 0;
+                var css = 'jef-tree-job-blank';
+                if (count > 0 && state === 'COMPLETED') {
+                    css = 'fa fa-check-circle nx-jef-status-ok';
+                } else if (count > 0 && state === 'RUNNING') {
+                    css = 'fa fa-spinner fa-spin nx-jef-status-running';
+                } else if (count > 0) {
+                    css = 'fa fa-exclamation-circle nx-jef-status-error';
+                }
+                cell.find('i').attr('class', css);
+                cell.find('span').text(count);
+            });
+            row.find('[data-jef-total]').text(msg.total);
+            return false;
+        }
+    };
+
+    return {
+        // Invoked again when the component is rendered again, in which
+        // case the existing connection is kept.
+        connect: function(cfg) {
+            var push = pushes[cfg.id];
+            if (push) {
+                push.cfg = cfg;
+                JEFMonPush.setGeneration(cfg.id, cfg.generation);
+                return;
+            }
+            push = new Push(cfg);
+            pushes[cfg.id] = push;
+            push.open();
+        },
+        // Invoked after a server refresh, with the generation shown.
+        setGeneration: function(id, generation) {
+            var push = pushes[id];
+            if (push && generation > push.generation) {
+                push.generation = generation;
+            }
+        }
+    };
+})(jQuery);
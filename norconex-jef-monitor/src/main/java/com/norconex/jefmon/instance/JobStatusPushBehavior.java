@@ -0,0 +1,130 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.ajax.AbstractDefaultAjaxBehavior;
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.ajax.json.JSONException;
+import org.apache.wicket.ajax.json.JSONObject;
+import org.apache.wicket.markup.head.IHeaderResponse;
+import org.apache.wicket.markup.head.OnDomReadyHeaderItem;
+import org.apache.wicket.request.cycle.RequestCycle;
+
+import com.norconex.commons.wicket.markup.head.HeaderContributor;
+import com.norconex.jefmon.JEFMonApplication;
+import com.norconex.jefmon.ws.JobStatusSocketServlet;
+
+/**
+ * Keeps a component up to date with job status changes pushed by 
+ * {@link JobStatusSocketServlet}, instead of polling the server at a 
+ * fixed rate.  Changes are applied in the browser by the 
+ * <code>JobStatusPush.js</code> handler matching the component 
+ * ("tree" or "summary").  Changes the handler cannot apply on its own
+ * are refreshed from the server with {@link #onRefresh(AjaxRequestTarget)},
+ * which is also invoked at the given interval when WebSocket cannot be 
+ * used, if polling is enabled.
+ */
+@SuppressWarnings("nls")
+public abstract class JobStatusPushBehavior 
+        extends AbstractDefaultAjaxBehavior {
+
+    private static final long serialVersionUID = -1961937414446066373L;
+
+    private final String handler;
+    private final int interval;
+    private final boolean poll;
+
+    /**
+     * Creates a job status push behavior.
+     * @param handler name of the JavaScript handler applying changes
+     * @param interval minimum interval between server refreshes 
+     *        for changes not applied by the handler, in seconds
+     * @param poll whether to poll the server at the given interval
+     *        when WebSocket cannot be used
+     */
+    public JobStatusPushBehavior(String handler, int interval, boolean poll) {
+        super();
+        this.handler = handler;
+        this.interval = interval;
+        this.poll = poll;
+    }
+
+    @Override
+    protected void onBind() {
+        super.onBind();
+        getComponent().setOutputMarkupId(true);
+    }
+
+    @Override
+    protected final void respond(AjaxRequestTarget target) {
+        onRefresh(target);
+        target.appendJavaScript("JEFMonPush.setGeneration('" 
+                + getComponent().getMarkupId() + "', " 
+                + getGeneration() + ");");
+    }
+
+    /**
+     * Refreshes the component with the latest job statuses.
+     * @param target AJAX request target
+     */
+    protected abstract void onRefresh(AjaxRequestTarget target);
+
+    /**
+     * Gets the generation of suite statuses shown by the component.
+     * Defaults to the current generation.
+     * @return generation number
+     */
+    protected long getGeneration() {
+        return JEFMonApplication.get().getJobSuitesStatusesMonitor()
+                .getGeneration();
+    }
+
+    /**
+     * Gets whether the component only shows jobs matching some criteria,
+     * in which case changes to jobs not shown may also require a server
+     * refresh.  Such refreshes happen at most once per interval.
+     * Defaults to <code>false</code>.
+     * @return <code>true</code> if filtered
+     */
+    protected boolean isFiltered() {
+        return false;
+    }
+
+    @Override
+    public void renderHead(Component component, IHeaderResponse response) {
+        super.renderHead(component, response);
+        HeaderContributor.addJavascript(response, 
+                JobStatusPushBehavior.class, "JobStatusPush.js");
+        JSONObject cfg = new JSONObject();
+        try {
+            cfg.put("id", component.getMarkupId());
+            cfg.put("handler", handler);
+            cfg.put("path", RequestCycle.get().getRequest().getContextPath()
+                    + JobStatusSocketServlet.MAPPING);
+            cfg.put("callbackUrl", getCallbackUrl().toString());
+            cfg.put("generation", getGeneration());
+            cfg.put("interval", interval * 1000L);
+            cfg.put("poll", poll);
+            cfg.put("filtered", isFiltered());
+        } catch (JSONException e) {
+            throw new WicketRuntimeException(
+                    "Cannot create job status push configuration.", e);
+        }
+        response.render(OnDomReadyHeaderItem.forScript(
+                "JEFMonPush.connect(" + cfg + ");"));
+    }
+}
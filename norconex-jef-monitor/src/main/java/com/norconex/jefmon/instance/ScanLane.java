@@ -0,0 +1,401 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import com.norconex.jef4.status.JobSuiteStatusSnapshot;
+import com.norconex.jefmon.JEFMonConfig;
+import com.norconex.jefmon.instance.ScanLaneStatus.Health;
+
+/**
+ * Scans a single monitored path, loading suite index files due for
+ * a check. Each monitored path has its own lane, with its own loading
+ * threads, schedule and health, so a slow or unresponsive path
+ * (e.g., hung network mount) does not hold back other paths.
+ */
+@SuppressWarnings("nls")
+class ScanLane implements Runnable {
+
+    private static final Logger LOG = LogManager.getLogger(ScanLane.class);
+
+    private final File path;
+    private final JEFMonConfig cfg;
+    private final IndexFileWatcher watcher;
+    private final long interval;
+    private final ThreadPoolExecutor loaders;
+    private final SuiteSnapshotCache cache = new SuiteSnapshotCache();
+    private final SuiteScanScheduler scheduler = new SuiteScanScheduler();
+    private final AtomicBoolean scanning = new AtomicBoolean();
+
+    // Change signals received since last scan, guarded by changedFiles.
+    private final Set<File> changedFiles = new HashSet<>();
+    private boolean fullScan;
+
+    // Directories holding index files under a monitored directory,
+    // walked at most once per scan interval (scan thread only).
+    private final IndexDirectoryTree tree;
+    private Map<File, Set<File>> indexDirs = Collections.emptyMap();
+    private long lastWalk;
+    private final Set<File> registeredDirs = new HashSet<>();
+
+    private volatile Map<File, JobSuiteStatusSnapshot> snapshots =
+            Collections.emptyMap();
+    private volatile ScanStatistics lastScanStatistics;
+    private volatile Health health = Health.PENDING;
+    private volatile String error;
+    private volatile long scanStart;
+    private volatile Date lastScanDate;
+    private volatile long lastScanDuration;
+    private volatile long nextScan;
+
+    public ScanLane(File path, JEFMonConfig cfg, IndexFileWatcher watcher,
+            long interval, ThreadFactory loaderThreads) {
+        super();
+        this.path = path;
+        this.cfg = cfg;
+        this.watcher = watcher;
+        this.interval = interval;
+        this.tree = new IndexDirectoryTree(path);
+        int threads = cfg.getScanThreads();
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        this.loaders = new ThreadPoolExecutor(threads, threads,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                loaderThreads);
+        this.loaders.allowCoreThreadTimeOut(true);
+    }
+
+    public File getPath() {
+        return path;
+    }
+
+    /**
+     * Gets suite statuses from the last scan of this path.
+     * @return suite statuses keyed by index file (never <code>null</code>)
+     */
+    public Map<File, JobSuiteStatusSnapshot> getSnapshots() {
+        return snapshots;
+    }
+    public ScanStatistics getLastScanStatistics() {
+        return lastScanStatistics;
+    }
+    public ScanLaneStatus getStatus() {
+        return new ScanLaneStatus(path, health, lastScanDate,
+                lastScanDuration, snapshots.size(), scanning.get(), error);
+    }
+
+    /**
+     * Gets whether the given index file belongs to this lane.
+     * @param indexFile index file
+     * @return <code>true</code> if part of this lane
+     */
+    public boolean accepts(File indexFile) {
+        return indexFile.toPath().startsWith(path.toPath());
+    }
+    public void addChange(File indexFile) {
+        synchronized (changedFiles) {
+            changedFiles.add(indexFile);
+        }
+    }
+    public void requestFullScan() {
+        synchronized (changedFiles) {
+            fullScan = true;
+        }
+    }
+
+    /**
+     * Gets when this lane should be scanned next, unless change signals
+     * are received before.
+     * @return next scan time
+     */
+    public long getNextScan() {
+        return nextScan;
+    }
+    public boolean isDue(long now) {
+        if (now >= nextScan) {
+            return true;
+        }
+        synchronized (changedFiles) {
+            return fullScan || !changedFiles.isEmpty();
+        }
+    }
+    public boolean isScanning() {
+        return scanning.get();
+    }
+    /**
+     * Marks this lane as scanning, unless it already is.
+     * @return <code>true</code> if the caller should run the scan
+     */
+    public boolean startScanning() {
+        return scanning.compareAndSet(false, true);
+    }
+
+    /**
+     * Marks this lane as degraded if its current scan has been running
+     * for longer than the given timeout.
+     * @param now current time
+     * @param timeout scan timeout, in milliseconds
+     */
+    public void checkTimeout(long now, long timeout) {
+        long start = scanStart;
+        if (start > 0 && now - start > timeout
+                && health != Health.DEGRADED) {
+            setHealth(Health.DEGRADED,
+                    "Scan running for more than " + timeout + " ms.");
+        }
+    }
+
+    @Override
+    public void run() {
+        scanStart = System.currentTimeMillis();
+        try {
+            scan();
+            long duration = System.currentTimeMillis() - scanStart;
+            if (duration > cfg.getScanTimeout()) {
+                setHealth(Health.DEGRADED, "Last scan took " + duration
+                        + " ms, which is longer than the scan timeout ("
+                        + cfg.getScanTimeout() + " ms).");
+            } else {
+                setHealth(Health.HEALTHY, null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            setHealth(Health.FAILED, e.getMessage());
+            LOG.debug("Could not scan monitored path: " + path, e);
+        } finally {
+            long now = System.currentTimeMillis();
+            lastScanDate = new Date(now);
+            lastScanDuration = now - scanStart;
+            nextScan = Math.min(now + interval, scheduler.getNextCheck());
+            scanStart = 0;
+            scanning.set(false);
+        }
+    }
+
+    public void close() {
+        loaders.shutdownNow();
+    }
+
+    private void setHealth(Health newHealth, String newError) {
+        if (health != newHealth || !Objects.equals(error, newError)) {
+            if (newHealth == Health.HEALTHY) {
+                LOG.info("Monitored path is healthy: " + path);
+            } else {
+                LOG.warn("Monitored path is " + newHealth + ": " + path
+                        + " (" + newError + ")");
+            }
+        }
+        health = newHealth;
+        error = newError;
+    }
+
+    private void scan() throws IOException, InterruptedException {
+        Date scanDate = new Date();
+        Set<File> changes;
+        boolean full;
+        synchronized (changedFiles) {
+            changes = new HashSet<>(changedFiles);
+            changedFiles.clear();
+            full = fullScan;
+            fullScan = false;
+        }
+
+        Set<File> newDirs = watcher.watch(path);
+        if (!path.exists()) {
+            indexDirs = Collections.emptyMap();
+            registeredDirs.clear();
+            snapshots = Collections.emptyMap();
+            cache.retainAll(Collections.<File>emptySet());
+            scheduler.clear();
+            throw new FileNotFoundException("Path not found: " + path);
+        }
+
+        // Index files not receiving change events.
+        Set<File> polledFiles = new HashSet<>();
+        Set<File> files = new HashSet<>();
+        if (path.isFile()) {
+            files.add(path);
+            if (!watcher.isWatched(path.getParentFile())) {
+                polledFiles.add(path);
+            }
+        } else if (path.isDirectory()) {
+            walk(newDirs, changes, full);
+            for (Entry<File, Set<File>> indexDir : indexDirs.entrySet()) {
+                File dir = indexDir.getKey();
+                if (!watcher.isWatched(dir)) {
+                    // no change events: check everything
+                    polledFiles.addAll(indexDir.getValue());
+                }
+                files.addAll(indexDir.getValue());
+            }
+        }
+
+        cache.retainAll(files);
+
+        // Changed suites are made hot.
+        scheduler.retainAll(files);
+        for (File file : changes) {
+            scheduler.promote(file);
+        }
+        for (File file : polledFiles) {
+            if (cache.isIndexModified(file)) {
+                scheduler.promote(file);
+            }
+        }
+
+        // Load suite statuses due for a check in parallel, keeping
+        // loaded ones for others.
+        long hits = cache.getHits();
+        long misses = cache.getMisses();
+        Map<File, JobSuiteStatusSnapshot> previous = snapshots;
+        Map<File, JobSuiteStatusSnapshot> loaded = new HashMap<>();
+        Map<File, Future<JobSuiteStatusSnapshot>> loads = new HashMap<>();
+        Map<File, Long> parseTimes = new ConcurrentHashMap<>();
+        int errors = 0;
+        for (File file : files) {
+            JobSuiteStatusSnapshot snapshot = previous.get(file);
+            if (snapshot != null
+                    && !scheduler.isDue(file, scanDate.getTime())) {
+                loaded.put(file, snapshot);
+            } else {
+                loads.put(file, loaders.submit(
+                        new SnapshotLoader(file, snapshot, parseTimes)));
+            }
+        }
+        for (Entry<File, Future<JobSuiteStatusSnapshot>> load
+                : loads.entrySet()) {
+            File file = load.getKey();
+            JobSuiteStatusSnapshot previousSnapshot = previous.get(file);
+            JobSuiteStatusSnapshot snapshot = previousSnapshot;
+            try {
+                snapshot = load.getValue().get();
+            } catch (ExecutionException e) {
+                LOG.error("Cannot sync suite statuses for index file: "
+                        + file, e.getCause());
+                errors++;
+            }
+            if (snapshot != null) {
+                loaded.put(file, snapshot);
+            }
+            scheduler.reschedule(file, snapshot,
+                    snapshot != previousSnapshot,
+                    cfg.getHotScanInterval(), cfg.getColdScanInterval(),
+                    System.currentTimeMillis());
+        }
+        snapshots = Collections.unmodifiableMap(loaded);
+
+        long duration = System.currentTimeMillis() - scanDate.getTime();
+        lastScanStatistics = new ScanStatistics(scanDate, duration,
+                files.size(), cache.getHits() - hits,
+                cache.getMisses() - misses, errors, parseTimes);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Scan completed for " + path + ": "
+                    + lastScanStatistics);
+        }
+        if (duration > interval) {
+            LOG.warn("Scanning " + path + " took " + duration
+                    + " ms, which is longer than the scan interval ("
+                    + interval + " ms). Consider increasing the number "
+                    + "of scan threads (currently "
+                    + loaders.getMaximumPoolSize() + ").");
+        }
+    }
+
+    // Walks the monitored directory when the scan interval elapsed or
+    // when changes were signaled, listing again only directories that
+    // changed or received change events.
+    private void walk(Set<File> newDirs, Set<File> changes, boolean full) {
+        long now = System.currentTimeMillis();
+        if (!full && changes.isEmpty() && newDirs.isEmpty()
+                && now - lastWalk < interval) {
+            return;
+        }
+        Set<File> staleDirs = new HashSet<>(newDirs);
+        for (File file : changes) {
+            staleDirs.add(file.getParentFile());
+        }
+        indexDirs = tree.walk(cfg.getScanDepth(), cfg.getScanIncludes(),
+                cfg.getScanExcludes(), staleDirs, full);
+        lastWalk = now;
+
+        // Watch sub-directories holding index files (the monitored
+        // directory itself is already).
+        registeredDirs.retainAll(indexDirs.keySet());
+        for (File dir : indexDirs.keySet()) {
+            if (registeredDirs.add(dir) && !dir.equals(path)) {
+                watcher.watch(dir);
+            }
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Walked " + tree.getLastWalkedCount()
+                    + " directories (" + tree.getLastListedCount()
+                    + " listed) under " + path + ", found "
+                    + indexDirs.size() + " holding index files.");
+        }
+    }
+
+    private class SnapshotLoader implements Callable<JobSuiteStatusSnapshot> {
+        private final File indexFile;
+        private final JobSuiteStatusSnapshot previous;
+        private final Map<File, Long> parseTimes;
+        public SnapshotLoader(File indexFile,
+                JobSuiteStatusSnapshot previous,
+                Map<File, Long> parseTimes) {
+            super();
+            this.indexFile = indexFile;
+            this.previous = previous;
+            this.parseTimes = parseTimes;
+        }
+        @Override
+        public JobSuiteStatusSnapshot call() throws IOException {
+            long start = System.currentTimeMillis();
+            JobSuiteStatusSnapshot snapshot = cache.getSnapshot(indexFile);
+            if (snapshot != null && snapshot != previous) {
+                long elapsed = System.currentTimeMillis() - start;
+                parseTimes.put(indexFile, elapsed);
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Parsed suite index file in " + elapsed
+                            + " ms: " + indexFile);
+                }
+            }
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.Date;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * Scanning status of a single monitored path.
+ */
+public class ScanLaneStatus implements Serializable {
+
+    private static final long serialVersionUID = 4151651738541786123L;
+
+    /** Health of a monitored path. */
+    public enum Health {
+        /** Not scanned yet. */
+        PENDING,
+        /** Last scan completed within its timeout. */
+        HEALTHY,
+        /** Current or last scan took longer than its timeout. */
+        DEGRADED,
+        /** Last scan failed (e.g., path not found). */
+        FAILED
+    }
+
+    private final File path;
+    private final Health health;
+    private final Date lastScanDate;
+    private final long lastScanDuration;
+    private final int suites;
+    private final boolean scanning;
+    private final String error;
+
+    public ScanLaneStatus(File path, Health health, Date lastScanDate,
+            long lastScanDuration, int suites, boolean scanning,
+            String error) {
+        super();
+        this.path = path;
+        this.health = health;
+        this.lastScanDate = lastScanDate;
+        this.lastScanDuration = lastScanDuration;
+        this.suites = suites;
+        this.scanning = scanning;
+        this.error = error;
+    }
+
+    /**
+     * Gets the monitored path.
+     * @return monitored path
+     */
+    public File getPath() {
+        return path;
+    }
+    public Health getHealth() {
+        return health;
+    }
+    /**
+     * Gets when the last completed scan of this path ended.
+     * @return last scan date or <code>null</code> if never completed
+     */
+    public Date getLastScanDate() {
+        return lastScanDate;
+    }
+    /**
+     * Gets how long the last completed scan took, in milliseconds.
+     * @return last scan duration
+     */
+    public long getLastScanDuration() {
+        return lastScanDuration;
+    }
+    /**
+     * Gets the number of suites found under this path by the last scan.
+     * @return suite count
+     */
+    public int getSuites() {
+        return suites;
+    }
+    /**
+     * Gets whether this path is being scanned.
+     * @return <code>true</code> if being scanned
+     */
+    public boolean isScanning() {
+        return scanning;
+    }
+    /**
+     * Gets a description of the last scan problem, if any.
+     * @return error or <code>null</code>
+     */
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("path", path)
+                .append("health", health)
+                .append("lastScanDate", lastScanDate)
+                .append("lastScanDuration", lastScanDuration)
+                .append("suites", suites)
+                .append("scanning", scanning)
+                .append("error", error)
+                .toString();
+    }
+}
@@ -0,0 +1,132 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * Statistics about a single scan of monitored paths.
+ */
+public class ScanStatistics implements Serializable {
+
+    private static final long serialVersionUID = -2446209735961395839L;
+
+    private final Date date;
+    private final long duration;
+    private final int indexFiles;
+    private final long cacheHits;
+    private final long cacheMisses;
+    private final int errors;
+    private final Map<File, Long> parseTimes;
+
+    public ScanStatistics(Date date, long duration, int indexFiles,
+            long cacheHits, long cacheMisses, int errors,
+            Map<File, Long> parseTimes) {
+        super();
+        this.date = date;
+        this.duration = duration;
+        this.indexFiles = indexFiles;
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
+        this.errors = errors;
+        this.parseTimes = Collections.unmodifiableMap(
+                new HashMap<>(parseTimes));
+    }
+
+    /**
+     * Gets when the scan started.
+     * @return scan date
+     */
+    public Date getDate() {
+        return date;
+    }
+    /**
+     * Gets how long the scan took (wall time), in milliseconds.
+     * @return scan duration
+     */
+    public long getDuration() {
+        return duration;
+    }
+    /**
+     * Gets the number of index files found.
+     * @return index file count
+     */
+    public int getIndexFiles() {
+        return indexFiles;
+    }
+    /**
+     * Gets the number of index files whose cached snapshot was reused.
+     * @return cache hits
+     */
+    public long getCacheHits() {
+        return cacheHits;
+    }
+    /**
+     * Gets the number of index files that had to be parsed.
+     * @return cache misses
+     */
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+    /**
+     * Gets the number of index files that could not be loaded.
+     * @return error count
+     */
+    public int getErrors() {
+        return errors;
+    }
+    /**
+     * Gets how long it took to parse each index file parsed during
+     * the scan, in milliseconds.
+     * @return parse times (never <code>null</code>)
+     */
+    public Map<File, Long> getParseTimes() {
+        return parseTimes;
+    }
+    /**
+     * Gets the total time spent parsing index files, in milliseconds.
+     * Since files are parsed in parallel, this can be longer than the
+     * scan duration.
+     * @return total parse time
+     */
+    public long getTotalParseTime() {
+        long total = 0;
+        for (Long time : parseTimes.values()) {
+            total += time;
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("date", date)
+                .append("duration", duration)
+                .append("indexFiles", indexFiles)
+                .append("cacheHits", cacheHits)
+                .append("cacheMisses", cacheMisses)
+                .append("errors", errors)
+                .append("totalParseTime", getTotalParseTime())
+                .toString();
+    }
+}
@@ -0,0 +1,187 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * Totals about monitored path scans since monitoring started.
+ * Instances obtained from {@link JEFMonInstance#getScanTelemetry()}
+ * are copies that do not change.
+ */
+public final class ScanTelemetry implements Serializable {
+
+    private static final long serialVersionUID = -4393617460426468529L;
+
+    /**
+     * Upper bounds (inclusive) of scan duration histogram buckets,
+     * in milliseconds.  A last bucket holds longer scans.
+     */
+    public static final long[] DURATION_BUCKETS = {
+        10, 50, 100, 500, 1000, 5000, 10000, 30000, 60000
+    };
+
+    private final Date startDate;
+    private final long[] durationCounts =
+            new long[DURATION_BUCKETS.length + 1];
+    private long scans;
+    private long filesSeen;
+    private long filesParsed;
+    private long errors;
+    private long lastSuccessfulGeneration;
+    private Date lastSuccessDate;
+    private Date lastErrorDate;
+
+    ScanTelemetry() {
+        this(new Date());
+    }
+    private ScanTelemetry(Date startDate) {
+        super();
+        this.startDate = startDate;
+    }
+
+    synchronized void recordScan(ScanStatistics statistics) {
+        scans++;
+        durationCounts[getBucket(statistics.getDuration())]++;
+        filesSeen += statistics.getIndexFiles();
+        filesParsed += statistics.getCacheMisses();
+        errors += statistics.getErrors();
+        if (statistics.getErrors() > 0) {
+            lastErrorDate = statistics.getDate();
+        }
+    }
+    synchronized void recordFailure(Date date) {
+        errors++;
+        lastErrorDate = date;
+    }
+    synchronized void recordSuccess(long generation, Date date) {
+        lastSuccessfulGeneration = generation;
+        lastSuccessDate = date;
+    }
+
+    /**
+     * Gets a copy of this telemetry.
+     * @return telemetry copy
+     */
+    synchronized ScanTelemetry copy() {
+        ScanTelemetry copy = new ScanTelemetry(startDate);
+        System.arraycopy(durationCounts, 0, 
+                copy.durationCounts, 0, durationCounts.length);
+        copy.scans = scans;
+        copy.filesSeen = filesSeen;
+        copy.filesParsed = filesParsed;
+        copy.errors = errors;
+        copy.lastSuccessfulGeneration = lastSuccessfulGeneration;
+        copy.lastSuccessDate = lastSuccessDate;
+        copy.lastErrorDate = lastErrorDate;
+        return copy;
+    }
+
+    /**
+     * Gets when monitoring started.
+     * @return start date
+     */
+    public Date getStartDate() {
+        return startDate;
+    }
+    /**
+     * Gets how many scans ended with a duration falling in each of
+     * the {@link #DURATION_BUCKETS}, plus one for longer scans.
+     * @return scan counts by duration
+     */
+    public synchronized long[] getDurationCounts() {
+        return ArrayUtils.clone(durationCounts);
+    }
+    /**
+     * Gets the number of monitored path scans completed.
+     * @return scan count
+     */
+    public synchronized long getScans() {
+        return scans;
+    }
+    /**
+     * Gets the total number of index files found by all scans.
+     * @return index files seen
+     */
+    public synchronized long getFilesSeen() {
+        return filesSeen;
+    }
+    /**
+     * Gets the total number of index files parsed by all scans.
+     * @return index files parsed
+     */
+    public synchronized long getFilesParsed() {
+        return filesParsed;
+    }
+    /**
+     * Gets the number of index files that could not be loaded and
+     * of monitored path scans that failed.
+     * @return error count
+     */
+    public synchronized long getErrors() {
+        return errors;
+    }
+    /**
+     * Gets the generation of suite statuses current after the last scan
+     * completed without errors.
+     * @return last successful generation
+     */
+    public synchronized long getLastSuccessfulGeneration() {
+        return lastSuccessfulGeneration;
+    }
+    /**
+     * Gets when the last scan completed without errors.
+     * @return date or <code>null</code> if none did
+     */
+    public synchronized Date getLastSuccessDate() {
+        return lastSuccessDate;
+    }
+    /**
+     * Gets when the last error occurred.
+     * @return date or <code>null</code> if none occurred
+     */
+    public synchronized Date getLastErrorDate() {
+        return lastErrorDate;
+    }
+
+    private int getBucket(long duration) {
+        for (int i = 0; i < DURATION_BUCKETS.length; i++) {
+            if (duration <= DURATION_BUCKETS[i]) {
+                return i;
+            }
+        }
+        return DURATION_BUCKETS.length;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("startDate", startDate)
+                .append("scans", scans)
+                .append("durationCounts", durationCounts)
+                .append("filesSeen", filesSeen)
+                .append("filesParsed", filesParsed)
+                .append("errors", errors)
+                .append("lastSuccessfulGeneration", lastSuccessfulGeneration)
+                .append("lastSuccessDate", lastSuccessDate)
+                .append("lastErrorDate", lastErrorDate)
+                .toString();
+    }
+}
@@ -0,0 +1,130 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.norconex.jef4.status.IJobStatus;
+import com.norconex.jef4.status.JobSuiteStatusSnapshot;
+
+/**
+ * Flattened view of the jobs of a suite status snapshot, built once
+ * per snapshot so navigating the job tree does not require walking
+ * the snapshot again.
+ */
+public final class SuiteJobIndex {
+
+    private final JobSuiteStatusSnapshot snapshot;
+    private final Map<String, IJobStatus> statuses = new HashMap<>();
+    private final Map<String, String[]> children = new HashMap<>();
+    private final Map<String, String> parentIds = new HashMap<>();
+    private final List<String> jobIds;
+    private final List<String> parentJobIds;
+
+    public SuiteJobIndex(JobSuiteStatusSnapshot snapshot) {
+        super();
+        this.snapshot = snapshot;
+        List<String> ids = new ArrayList<>();
+        List<String> parents = new ArrayList<>();
+        for (IJobStatus status : snapshot.getJobStatusList()) {
+            String jobId = status.getJobId();
+            statuses.put(jobId, status);
+            ids.add(jobId);
+            List<IJobStatus> jobChildren = snapshot.getChildren(jobId);
+            if (!jobChildren.isEmpty()) {
+                String[] childIds = new String[jobChildren.size()];
+                for (int i = 0; i < childIds.length; i++) {
+                    childIds[i] = jobChildren.get(i).getJobId();
+                    parentIds.put(childIds[i], jobId);
+                }
+                children.put(jobId, childIds);
+                parents.add(jobId);
+            }
+        }
+        this.jobIds = Collections.unmodifiableList(ids);
+        this.parentJobIds = Collections.unmodifiableList(parents);
+    }
+
+    public JobSuiteStatusSnapshot getSnapshot() {
+        return snapshot;
+    }
+    /**
+     * Gets the status of a job.
+     * @param jobId job id
+     * @return job status or <code>null</code> if no such job
+     */
+    public IJobStatus getJobStatus(String jobId) {
+        return statuses.get(jobId);
+    }
+    /**
+     * Gets the number of direct children of a job.
+     * @param jobId job id
+     * @return child count
+     */
+    public int getChildCount(String jobId) {
+        String[] childIds = children.get(jobId);
+        if (childIds == null) {
+            return 0;
+        }
+        return childIds.length;
+    }
+    /**
+     * Gets the ids of direct children of a job, in suite order.
+     * @param jobId job id
+     * @return child job ids (never <code>null</code>)
+     */
+    public List<String> getChildIds(String jobId) {
+        String[] childIds = children.get(jobId);
+        if (childIds == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(Arrays.asList(childIds));
+    }
+    /**
+     * Gets the id of the parent of a job.
+     * @param jobId job id
+     * @return parent job id or <code>null</code> for the suite root job
+     *         or if no such job
+     */
+    public String getParentId(String jobId) {
+        return parentIds.get(jobId);
+    }
+    /**
+     * Gets the ids of all jobs, in suite order.
+     * @return job ids (never <code>null</code>)
+     */
+    public List<String> getJobIds() {
+        return jobIds;
+    }
+    /**
+     * Gets the ids of all jobs having children.
+     * @return parent job ids (never <code>null</code>)
+     */
+    public List<String> getParentJobIds() {
+        return parentJobIds;
+    }
+    /**
+     * Gets the number of jobs in the suite.
+     * @return job count
+     */
+    public int size() {
+        return statuses.size();
+    }
+}
@@ -0,0 +1,132 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.norconex.jef4.status.IJobStatus;
+import com.norconex.jef4.status.JobState;
+import com.norconex.jef4.status.JobSuiteStatusSnapshot;
+
+/**
+ * Decides when each suite index file should be checked again.
+ * Running or stopping suites, and suites that just changed, are "hot"
+ * and checked at the hot interval.  Other suites back off, doubling their
+ * interval every time they are found unchanged (and starting from how
+ * long they have been idle), up to the cold interval.  A change signal
+ * (e.g., file event) makes a suite hot again.
+ * Not thread-safe.
+ */
+public class SuiteScanScheduler {
+
+    private final Map<File, Schedule> schedules = new HashMap<>();
+
+    /**
+     * Gets whether an index file is due for being checked.  Index files
+     * never scheduled are always due.
+     * @param indexFile suite index file
+     * @param now current time
+     * @return <code>true</code> if due
+     */
+    public boolean isDue(File indexFile, long now) {
+        Schedule schedule = schedules.get(indexFile);
+        return schedule == null || schedule.nextCheck <= now;
+    }
+
+    /**
+     * Makes a suite hot, due right away.
+     * @param indexFile suite index file
+     */
+    public void promote(File indexFile) {
+        schedules.remove(indexFile);
+    }
+
+    /**
+     * Schedules the next check of an index file that was just checked.
+     * @param indexFile suite index file
+     * @param snapshot suite snapshot just obtained (can be
+     *        <code>null</code>)
+     * @param changed whether the snapshot changed since last check
+     * @param hotInterval hot interval, in milliseconds
+     * @param coldInterval cold interval, in milliseconds
+     * @param now current time
+     */
+    public void reschedule(File indexFile, JobSuiteStatusSnapshot snapshot,
+            boolean changed, long hotInterval, long coldInterval, long now) {
+        Schedule schedule = schedules.get(indexFile);
+        long interval = hotInterval;
+        if (schedule != null && !changed && !isHot(snapshot)) {
+            interval = Math.max(schedule.interval * 2, idleTime(snapshot, now));
+        }
+        interval = Math.max(hotInterval, Math.min(coldInterval, interval));
+        schedules.put(indexFile, new Schedule(interval, now + interval));
+    }
+
+    /**
+     * Gets when the next index file is due, if any.
+     * @return next check time or <code>Long.MAX_VALUE</code> if none
+     */
+    public long getNextCheck() {
+        long next = Long.MAX_VALUE;
+        for (Schedule schedule : schedules.values()) {
+            next = Math.min(next, schedule.nextCheck);
+        }
+        return next;
+    }
+
+    /**
+     * Forgets about index files not part of the given ones.
+     * @param indexFiles index files to keep
+     */
+    public void retainAll(Collection<File> indexFiles) {
+        schedules.keySet().retainAll(indexFiles);
+    }
+
+    public void clear() {
+        schedules.clear();
+    }
+
+    private boolean isHot(JobSuiteStatusSnapshot snapshot) {
+        if (snapshot == null) {
+            return false;
+        }
+        JobState state = snapshot.getRoot().getState();
+        return state != null
+                && state.isOneOf(JobState.RUNNING, JobState.STOPPING);
+    }
+    private long idleTime(JobSuiteStatusSnapshot snapshot, long now) {
+        if (snapshot == null) {
+            return 0;
+        }
+        IJobStatus root = snapshot.getRoot();
+        if (root.getLastActivity() == null) {
+            return 0;
+        }
+        return Math.max(0, now - root.getLastActivity().getTime());
+    }
+
+    private static class Schedule {
+        private final long interval;
+        private final long nextCheck;
+        public Schedule(long interval, long nextCheck) {
+            super();
+            this.interval = interval;
+            this.nextCheck = nextCheck;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.FilenameUtils;
+
+import com.norconex.commons.lang.file.FileUtil;
+import com.norconex.commons.lang.map.Properties;
+import com.norconex.jef4.status.IJobStatus;
+import com.norconex.jef4.status.JobSuiteStatusSnapshot;
+
+/**
+ * Keeps suite status snapshots loaded from index files so they are
+ * only parsed again when the index file or one of the suite job status
+ * files changed.  Index files are compared by last modified date and size.
+ * Job status files are compared by last modified date against the
+ * last activity of the matching job status, which is the last modified
+ * date of the status file at the time it was read.
+ * Job status files not found next to the index file (e.g., custom
+ * status store location) never match, so such suites are always loaded.
+ */
+@SuppressWarnings("nls")
+public class SuiteSnapshotCache {
+
+    private final Map<File, CachedSnapshot> cache = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Gets the snapshot for the given index file, loading it only if
+     * there is none cached or if its files changed since it was cached.
+     * @param indexFile suite index file
+     * @return snapshot or <code>null</code> if the index file does
+     *         not exist
+     * @throws IOException problem loading snapshot
+     */
+    public JobSuiteStatusSnapshot getSnapshot(File indexFile)
+            throws IOException {
+        CachedSnapshot cached = cache.get(indexFile);
+        if (cached != null && cached.isCurrent()) {
+            hits.incrementAndGet();
+            return cached.snapshot;
+        }
+        misses.incrementAndGet();
+        // Stamps are taken before loading so changes made while loading
+        // are picked up next time.
+        long modified = indexFile.lastModified();
+        long length = indexFile.length();
+        JobSuiteStatusSnapshot snapshot =
+                JobSuiteStatusSnapshot.newSnapshot(indexFile);
+        if (snapshot == null) {
+            cache.remove(indexFile);
+        } else {
+            // Same statuses as cached: keep the cached instance so callers
+            // can tell nothing changed.
+            if (cached != null && isSameStatuses(cached.snapshot, snapshot)) {
+                snapshot = cached.snapshot;
+            }
+            cache.put(indexFile, new CachedSnapshot(
+                    indexFile, modified, length, snapshot));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Gets whether an index file was modified since its snapshot was
+     * cached, without checking job status files.
+     * @param indexFile suite index file
+     * @return <code>true</code> if modified or not cached
+     */
+    public boolean isIndexModified(File indexFile) {
+        CachedSnapshot cached = cache.get(indexFile);
+        return cached == null || cached.isIndexModified();
+    }
+
+    /**
+     * Removes cached snapshots for index files not part of the given ones.
+     * @param indexFiles index files to keep
+     */
+    public void retainAll(Collection<File> indexFiles) {
+        cache.keySet().retainAll(indexFiles);
+    }
+
+    public int size() {
+        return cache.size();
+    }
+    /**
+     * Gets the number of times a cached snapshot was returned.
+     * @return cache hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+    /**
+     * Gets the number of times a snapshot had to be loaded.
+     * @return cache misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private static boolean isSameStatuses(
+            JobSuiteStatusSnapshot a, JobSuiteStatusSnapshot b) {
+        List<IJobStatus> aStatuses = a.getJobStatusList();
+        if (aStatuses.size() != b.getJobStatusList().size()) {
+            return false;
+        }
+        for (IJobStatus aStatus : aStatuses) {
+            IJobStatus bStatus = b.getJobStatus(aStatus.getJobId());
+            if (bStatus == null
+                    || aStatus.getState() != bStatus.getState()
+                    || aStatus.getProgress() != bStatus.getProgress()
+                    || aStatus.getResumeAttempts() 
+                            != bStatus.getResumeAttempts()
+                    || !Objects.equals(aStatus.getNote(), bStatus.getNote())
+                    || !Objects.equals(aStatus.getLastActivity(),
+                            bStatus.getLastActivity())
+                    || !Objects.equals(aStatus.getDuration().getStartTime(),
+                            bStatus.getDuration().getStartTime())
+                    || !Objects.equals(aStatus.getDuration().getEndTime(),
+                            bStatus.getDuration().getEndTime())
+                    || !isSameProperties(aStatus.getProperties(),
+                            bStatus.getProperties())
+                    || !Objects.equals(getParentId(a, aStatus),
+                            getParentId(b, bStatus))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    // Properties do not implement equals(Object).
+    private static boolean isSameProperties(Properties a, Properties b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return new HashMap<>(a).equals(new HashMap<>(b));
+    }
+    private static String getParentId(
+            JobSuiteStatusSnapshot snapshot, IJobStatus status) {
+        IJobStatus parent = snapshot.getParent(status);
+        if (parent == null) {
+            return null;
+        }
+        return parent.getJobId();
+    }
+
+    private static class CachedSnapshot {
+        private final File indexFile;
+        private final long indexModified;
+        private final long indexLength;
+        private final JobSuiteStatusSnapshot snapshot;
+        public CachedSnapshot(File indexFile, long indexModified,
+                long indexLength, JobSuiteStatusSnapshot snapshot) {
+            super();
+            this.indexFile = indexFile;
+            this.indexModified = indexModified;
+            this.indexLength = indexLength;
+            this.snapshot = snapshot;
+        }
+        private boolean isIndexModified() {
+            return indexFile.lastModified() != indexModified
+                    || indexFile.length() != indexLength;
+        }
+        private boolean isCurrent() {
+            if (isIndexModified()) {
+                return false;
+            }
+            File statusDir = new File(indexFile.getParentFile(),
+                    IndexFileWatcher.STATUS_DIR);
+            // same suite id used by JEF to resolve status files
+            String suitePrefix = 
+                    FilenameUtils.getBaseName(indexFile.getName()) + "__";
+            for (IJobStatus status : snapshot.getJobStatusList()) {
+                File statusFile = new File(statusDir, suitePrefix
+                        + FileUtil.toSafeFileName(status.getJobId())
+                        + IndexFileWatcher.STATUS_EXTENSION);
+                if (statusFile.lastModified()
+                        != toMillis(status.getLastActivity())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        private long toMillis(Date date) {
+            if (date == null) {
+                return 0;
+            }
+            return date.getTime();
+        }
+    }
+}
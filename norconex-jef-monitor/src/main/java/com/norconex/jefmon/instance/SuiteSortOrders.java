@@ -0,0 +1,146 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.norconex.jef4.status.IJobStatus;
+
+/**
+ * Orders of the suites of a generation sorted by a property of their
+ * root job, and of the children of their jobs sorted by the same 
+ * properties.  Sort keys of all suites are obtained once, and sort keys
+ * of children of a job the first time they are sorted.  Each order is
+ * sorted the first time it is needed and kept for the generation.
+ * Suites having the same sort key are ordered by suite id, and children
+ * having the same sort key stay in suite order.
+ * Obtained from {@link SuiteStatuses#getSortOrders()}.
+ */
+public final class SuiteSortOrders {
+
+    private final SuiteStatuses statuses;
+    private final SortKeys suites;
+    // Keyed by suite id and parent job id.
+    private final Map<List<String>, SortKeys> children = 
+            new ConcurrentHashMap<>();
+
+    public SuiteSortOrders(SuiteStatuses statuses) {
+        super();
+        this.statuses = statuses;
+        List<String> suiteIds = statuses.getSuiteIds();
+        List<IJobStatus> roots = new ArrayList<>(suiteIds.size());
+        for (String suiteId : suiteIds) {
+            roots.add(statuses.getJobIndex(suiteId).getJobStatus(suiteId));
+        }
+        this.suites = new SortKeys(suiteIds, roots);
+    }
+
+    /**
+     * Gets the ids of all suites sorted by a property of their root job.
+     * @param property sort property
+     * @param ascending <code>true</code> if sorted in ascending order
+     * @return sorted suite ids (never <code>null</code>)
+     */
+    public List<String> getSuiteIds(
+            JobSortProperty property, boolean ascending) {
+        return suites.getOrder(property, ascending);
+    }
+
+    /**
+     * Gets the ids of the direct children of a job sorted by a property.
+     * @param suiteId suite id
+     * @param jobId id of the parent job
+     * @param property sort property
+     * @param ascending <code>true</code> if sorted in ascending order
+     * @return sorted child job ids (never <code>null</code>)
+     */
+    public List<String> getChildIds(String suiteId, String jobId,
+            JobSortProperty property, boolean ascending) {
+        List<String> parent = Arrays.asList(suiteId, jobId);
+        SortKeys keys = children.get(parent);
+        if (keys == null) {
+            SuiteJobIndex index = statuses.getJobIndex(suiteId);
+            if (index == null) {
+                return Collections.emptyList();
+            }
+            List<String> childIds = index.getChildIds(jobId);
+            List<IJobStatus> childStatuses = 
+                    new ArrayList<>(childIds.size());
+            for (String childId : childIds) {
+                childStatuses.add(index.getJobStatus(childId));
+            }
+            keys = new SortKeys(childIds, childStatuses);
+            children.put(parent, keys);
+        }
+        return keys.getOrder(property, ascending);
+    }
+
+    // Sort keys of jobs and their orders sorted so far.
+    private static class SortKeys {
+        private final List<String> ids;
+        private final Map<JobSortProperty, double[]> keys = 
+                new EnumMap<>(JobSortProperty.class);
+        private final Map<String, List<String>> orders = 
+                new ConcurrentHashMap<>();
+        public SortKeys(List<String> ids, List<IJobStatus> statuses) {
+            super();
+            this.ids = ids;
+            for (JobSortProperty property : JobSortProperty.values()) {
+                double[] propertyKeys = new double[ids.size()];
+                for (int i = 0; i < propertyKeys.length; i++) {
+                    propertyKeys[i] = property.getKey(statuses.get(i));
+                }
+                keys.put(property, propertyKeys);
+            }
+        }
+        public List<String> getOrder(
+                JobSortProperty property, boolean ascending) {
+            String orderKey = property + "." + ascending;
+            List<String> order = orders.get(orderKey);
+            if (order == null) {
+                order = sort(keys.get(property), ascending);
+                orders.put(orderKey, order);
+            }
+            return order;
+        }
+        private List<String> sort(
+                final double[] sortKeys, boolean ascending) {
+            final int sign = ascending ? 1 : -1;
+            Integer[] indexes = new Integer[sortKeys.length];
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = i;
+            }
+            // Stable sort: equal keys stay in the order of ids.
+            Arrays.sort(indexes, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return sign * Double.compare(sortKeys[a], sortKeys[b]);
+                }
+            });
+            List<String> order = new ArrayList<>(indexes.length);
+            for (Integer index : indexes) {
+                order.add(ids.get(index));
+            }
+            return Collections.unmodifiableList(order);
+        }
+    }
+}
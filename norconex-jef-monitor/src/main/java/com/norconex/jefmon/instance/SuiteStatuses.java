@@ -0,0 +1,212 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import com.norconex.jef4.status.JobSuiteStatusSnapshot;
+
+/**
+ * Immutable view of all suite statuses found by a scan of monitored paths.
+ * A new generation is published whenever a scan finds suite statuses
+ * different from the previous generation, so the generation number can
+ * be used to cache anything derived from suite statuses.
+ */
+public final class SuiteStatuses {
+
+    /** Statuses before a first scan completes. */
+    public static final SuiteStatuses EMPTY = new SuiteStatuses(0, null,
+            Collections.<File, JobSuiteStatusSnapshot>emptyMap(), null);
+
+    private final long generation;
+    private final Date date;
+    private final Map<File, JobSuiteStatusSnapshot> byIndexFile;
+    private final Map<String, JobSuiteStatusSnapshot> bySuiteId;
+    private final Map<String, SuiteJobIndex> jobIndexes;
+    private final List<String> suiteIds;
+    // Built when first needed.
+    private volatile JobSearchIndex searchIndex;
+    private volatile SuiteSortOrders sortOrders;
+
+    /**
+     * Creates suite statuses.
+     * @param generation generation number
+     * @param date when this generation was created
+     * @param statuses suite statuses keyed by index file
+     * @param previous previous generation, from which job indexes of
+     *        unchanged snapshots are reused (can be <code>null</code>)
+     */
+    public SuiteStatuses(long generation, Date date,
+            Map<File, JobSuiteStatusSnapshot> statuses,
+            SuiteStatuses previous) {
+        super();
+        this.generation = generation;
+        this.date = date;
+        Map<String, JobSuiteStatusSnapshot> suites = new HashMap<>();
+        Map<String, SuiteJobIndex> indexes = new HashMap<>();
+        for (JobSuiteStatusSnapshot snapshot : statuses.values()) {
+            String suiteId = snapshot.getRoot().getJobId();
+            suites.put(suiteId, snapshot);
+            SuiteJobIndex index = null;
+            if (previous != null) {
+                index = previous.jobIndexes.get(suiteId);
+            }
+            if (index == null || index.getSnapshot() != snapshot) {
+                index = new SuiteJobIndex(snapshot);
+            }
+            indexes.put(suiteId, index);
+        }
+        this.byIndexFile = Collections.unmodifiableMap(
+                new HashMap<>(statuses));
+        this.bySuiteId = Collections.unmodifiableMap(suites);
+        this.jobIndexes = Collections.unmodifiableMap(indexes);
+        List<String> ids = new ArrayList<>(suites.keySet());
+        Collections.sort(ids);
+        this.suiteIds = Collections.unmodifiableList(ids);
+    }
+
+    /**
+     * Gets the generation number, incremented every time new suite
+     * statuses are published.
+     * @return generation number
+     */
+    public long getGeneration() {
+        return generation;
+    }
+    /**
+     * Gets when this generation was created.
+     * @return date or <code>null</code> for {@link #EMPTY}
+     */
+    public Date getDate() {
+        return date;
+    }
+    /**
+     * Gets all suite statuses.
+     * @return suite statuses (never <code>null</code>)
+     */
+    public Collection<JobSuiteStatusSnapshot> getSuites() {
+        return byIndexFile.values();
+    }
+    /**
+     * Gets the ids of all suites, sorted.
+     * @return suite ids (never <code>null</code>)
+     */
+    public List<String> getSuiteIds() {
+        return suiteIds;
+    }
+    /**
+     * Gets a range of suite ids, sorted.
+     * @param first index of the first suite id to return
+     * @param count maximum number of suite ids to return
+     * @return suite ids (never <code>null</code>)
+     */
+    public List<String> getSuiteIds(long first, long count) {
+        int from = (int) Math.min(Math.max(0, first), suiteIds.size());
+        int to = from + (int) Math.min(
+                Math.max(0, count), suiteIds.size() - from);
+        return suiteIds.subList(from, to);
+    }
+    /**
+     * Gets the statuses of a suite.
+     * @param suiteId suite id (root job id)
+     * @return suite statuses or <code>null</code> if no such suite
+     */
+    public JobSuiteStatusSnapshot getSuite(String suiteId) {
+        return bySuiteId.get(suiteId);
+    }
+    /**
+     * Gets the job index of a suite, for navigating its jobs.
+     * @param suiteId suite id (root job id)
+     * @return suite job index or <code>null</code> if no such suite
+     */
+    public SuiteJobIndex getJobIndex(String suiteId) {
+        return jobIndexes.get(suiteId);
+    }
+    /**
+     * Gets the index for finding jobs of this generation by id or state.
+     * It is built the first time it is needed.
+     * @return job search index
+     */
+    public JobSearchIndex getSearchIndex() {
+        JobSearchIndex index = searchIndex;
+        if (index == null) {
+            index = new JobSearchIndex(this);
+            searchIndex = index;
+        }
+        return index;
+    }
+    /**
+     * Gets the orders of suites of this generation sorted by a property
+     * of their root job.  Sort keys are obtained the first time they are
+     * needed.
+     * @return suite sort orders
+     */
+    public SuiteSortOrders getSortOrders() {
+        SuiteSortOrders orders = sortOrders;
+        if (orders == null) {
+            orders = new SuiteSortOrders(this);
+            sortOrders = orders;
+        }
+        return orders;
+    }
+    /**
+     * Gets suite statuses keyed by the index file they were loaded from.
+     * @return suite statuses (never <code>null</code>)
+     */
+    public Map<File, JobSuiteStatusSnapshot> getIndexFileSuites() {
+        return byIndexFile;
+    }
+    public int size() {
+        return byIndexFile.size();
+    }
+
+    /**
+     * Gets whether the given suite statuses are the same as this
+     * generation ones (same snapshot instances for the same index files).
+     * @param statuses suite statuses keyed by index file
+     * @return <code>true</code> if unchanged
+     */
+    public boolean isSame(Map<File, JobSuiteStatusSnapshot> statuses) {
+        if (statuses.size() != byIndexFile.size()) {
+            return false;
+        }
+        for (Entry<File, JobSuiteStatusSnapshot> entry : statuses.entrySet()) {
+            if (byIndexFile.get(entry.getKey()) != entry.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("generation", generation)
+                .append("date", date)
+                .append("suites", byIndexFile.size())
+                .toString();
+    }
+}
@@ -37,11 +37,14 @@ import com.norconex.jefmon.instance.tree.JobStatusTreeNode;
 public class ActionsCell extends JEFMonPanel {
 
     private static final long serialVersionUID = -8687324636771116674L;
+
+    private final JobStatusTreeNode job;
     
     @SuppressWarnings("nls")
     public ActionsCell(final String id, 
             final JobStatusTreeNode job, final List<IJobAction> actions) {
         super(id);
+        this.job = job;
         
         add(new ListView<IJobAction>("actions", actions) {
             private static final long serialVersionUID = 3635147316426384496L;
@@ -83,4 +86,10 @@ public class ActionsCell extends JEFMonPanel {
             }
         });
     }
+
+    @Override
+    protected void onDetach() {
+        job.detach();
+        super.onDetach();
+    }
 }
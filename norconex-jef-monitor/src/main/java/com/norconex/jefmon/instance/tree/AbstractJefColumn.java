@@ -19,12 +19,18 @@ import org.apache.wicket.extensions.markup.html.repeater.data.table.AbstractColu
 import org.apache.wicket.markup.repeater.Item;
 import org.apache.wicket.model.IModel;
 
-public abstract class AbstractJefColumn extends AbstractColumn<JobStatusTreeNode, Void> {
+import com.norconex.jefmon.instance.JobSortProperty;
+
+public abstract class AbstractJefColumn extends AbstractColumn<JobStatusTreeNode, JobSortProperty> {
     private static final long serialVersionUID = -4245784740172933614L;
 
     public AbstractJefColumn(IModel<String> displayModel) {
         super(displayModel);
     }
+    public AbstractJefColumn(IModel<String> displayModel, 
+            JobSortProperty sortProperty) {
+        super(displayModel, sortProperty);
+    }
 
     @Override
     public final void populateItem(Item<ICellPopulator<JobStatusTreeNode>> cellItem,
@@ -26,13 +26,14 @@ import org.joda.time.format.DateTimeFormat;
 
 import com.norconex.jef4.status.JobDuration;
 import com.norconex.jefmon.JEFMonSession;
+import com.norconex.jefmon.instance.JobSortProperty;
 
 public class DateStartedColumn extends AbstractJefColumn {
 
     private static final long serialVersionUID = -2624662215293684093L;
 
     public DateStartedColumn(IModel<String> displayModel) {
-        super(displayModel);
+        super(displayModel, JobSortProperty.STARTED);
     }
 
     @Override
@@ -48,7 +49,12 @@ public class DateStartedColumn extends AbstractJefColumn {
         return "jef-tree-status";
     }
     
-    private String getTimeString(Date date) {
+    /**
+     * Formats a job start time as shown in this column.
+     * @param date start time
+     * @return formatted time or empty string if <code>null</code>
+     */
+    static String getTimeString(Date date) {
         if (date == null) {
             return StringUtils.EMPTY;
         }
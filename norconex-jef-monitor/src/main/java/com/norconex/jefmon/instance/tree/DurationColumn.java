@@ -17,33 +17,43 @@ package com.norconex.jefmon.instance.tree;
 import java.util.Date;
 import java.util.Locale;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.wicket.extensions.markup.html.repeater.data.grid.ICellPopulator;
 import org.apache.wicket.markup.html.basic.Label;
 import org.apache.wicket.markup.repeater.Item;
 import org.apache.wicket.model.IModel;
 
 import com.norconex.commons.lang.time.DurationUtil;
+import com.norconex.jef4.status.IJobStatus;
 import com.norconex.jef4.status.JobDuration;
 import com.norconex.jefmon.JEFMonSession;
+import com.norconex.jefmon.instance.JobSortProperty;
 
 public class DurationColumn extends AbstractJefColumn {
 
     private static final long serialVersionUID = -4129824825592867125L;
 
     public DurationColumn(IModel<String> displayModel) {
-        super(displayModel);
+        super(displayModel, JobSortProperty.DURATION);
     }
 
     @Override
     public void populateItem(Item<ICellPopulator<JobStatusTreeNode>> item,
             String componentId, JobStatusTreeNode jobStatus) {
 
+        item.add(new Label(componentId, getDurationString(jobStatus)));
+    }
+    /**
+     * Formats a job duration as shown in this column.
+     * @param jobStatus job status
+     * @return formatted duration or empty string if not started
+     */
+    static String getDurationString(IJobStatus jobStatus) {
         JobDuration duration = jobStatus.getDuration();
         Date startDate = duration.getStartTime();
         Date endDate = duration.getEndTime();
         if (startDate == null) {
-            item.add(new Label(componentId));
-            return;
+            return StringUtils.EMPTY;
         }
         
         long started = startDate.getTime();
@@ -54,9 +64,9 @@ public class DurationColumn extends AbstractJefColumn {
             stopTime = jobStatus.getLastActivity().getTime();
         }
         Locale locale = JEFMonSession.getSession().getLocale();
-        item.add(new Label(componentId, 
-                DurationUtil.formatLong(locale, stopTime - started, 2)));
+        return DurationUtil.formatLong(locale, stopTime - started, 2);
     }
+
     @Override
     public String getCssClass() {
         return "jef-tree-status";
@@ -96,8 +96,15 @@ public class JEFFolder extends Panel {
     }
 
     protected String getIconStyleClass() {
-        JobStatusTreeNode job = getModelObject();
-        JobState state = job.getState();
+        return getIconStyleClass(getModelObject().getState());
+    }
+
+    /**
+     * Gets the CSS class of the icon shown for a job state.
+     * @param state job state
+     * @return CSS class
+     */
+    static String getIconStyleClass(JobState state) {
         if (state == null) {
             return "jef-tree-job-blank";
         }
@@ -180,4 +187,4 @@ public class JEFFolder extends Panel {
             }
         }
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
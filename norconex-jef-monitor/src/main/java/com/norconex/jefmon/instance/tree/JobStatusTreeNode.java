@@ -18,6 +18,9 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
+
+import org.apache.wicket.model.IDetachable;
 
 import com.norconex.commons.lang.map.Properties;
 import com.norconex.jef4.log.ILogManager;
@@ -25,55 +28,101 @@ import com.norconex.jef4.status.IJobStatus;
 import com.norconex.jef4.status.JobDuration;
 import com.norconex.jef4.status.JobState;
 import com.norconex.jef4.status.JobSuiteStatusSnapshot;
-import com.norconex.jefmon.instance.JEFMonInstance;
+import com.norconex.jefmon.JEFMonApplication;
+import com.norconex.jefmon.instance.JobSortProperty;
+import com.norconex.jefmon.instance.SuiteJobIndex;
+import com.norconex.jefmon.instance.SuiteStatuses;
 
-public class JobStatusTreeNode implements IJobStatus, Serializable {
+/**
+ * Tree node for a job status.  A node resolves its job status from the
+ * latest suite statuses the first time it is needed, and keeps using
+ * it until detached (at the end of a request when held by a model).
+ * Children are resolved from the same suite statuses as their parent.
+ * Only job identifiers are serialized.
+ */
+public class JobStatusTreeNode 
+        implements IJobStatus, IDetachable, Serializable {
 
     private static final long serialVersionUID = -1114163221300422823L;
 
     private final boolean root;
-    private final String uid;
     private final String suiteId;
     private final String jobId;
     
-    private final JEFMonInstance instance;
-    
-    public JobStatusTreeNode(JEFMonInstance instance, String suiteId, 
-            String jobId, boolean root) {
+    // Resolved until detached
+    private transient SuiteStatuses boundStatuses;
+    private transient SuiteJobIndex boundIndex;
+    private transient IJobStatus boundStatus;
+
+    public JobStatusTreeNode(String suiteId, String jobId, boolean root) {
         super();
-        this.instance = instance;
         this.suiteId = suiteId;
         this.jobId = jobId;
         this.root = root;
-        this.uid = suiteId + "__" + jobId;
     }
 
     public boolean isRoot() {
         return root;
     }
     public boolean hasChildren() {
-        JobSuiteStatusSnapshot snapshot = getSuiteStatusSnapshot();
-        if (snapshot != null) {
-            return !snapshot.getChildren(jobId).isEmpty();
+        SuiteJobIndex index = getSuiteJobIndex();
+        if (index != null) {
+            return index.getChildCount(jobId) > 0;
         }
         return false;
     }
     public List<JobStatusTreeNode> getChildren() {
-        JobSuiteStatusSnapshot snapshot = getSuiteStatusSnapshot();
-        if (snapshot != null) {
-            List<IJobStatus> statuses = snapshot.getChildren(jobId);
-            List<JobStatusTreeNode> nodes = new ArrayList<>(statuses.size());
-            for (IJobStatus status : statuses) {
-                nodes.add(new JobStatusTreeNode(
-                        instance, suiteId, status.getJobId(), false));
-            }
-            return nodes;
+        SuiteJobIndex index = getSuiteJobIndex();
+        if (index != null) {
+            return toNodes(index.getChildIds(jobId));
         }
         return new ArrayList<>();
     }
+    /**
+     * Gets child nodes sorted by a property, using the sort orders of
+     * the suite statuses this node is resolved from.
+     * @param property sort property
+     * @param ascending <code>true</code> if sorted in ascending order
+     * @return sorted child nodes
+     */
+    public List<JobStatusTreeNode> getChildren(
+            JobSortProperty property, boolean ascending) {
+        if (getSuiteJobIndex() != null) {
+            return toNodes(boundStatuses.getSortOrders().getChildIds(
+                    suiteId, jobId, property, ascending));
+        }
+        return new ArrayList<>();
+    }
+    private List<JobStatusTreeNode> toNodes(List<String> childIds) {
+        List<JobStatusTreeNode> nodes = new ArrayList<>(childIds.size());
+        for (String childId : childIds) {
+            JobStatusTreeNode child = new JobStatusTreeNode(
+                    suiteId, childId, false);
+            child.bind(boundStatuses);
+            nodes.add(child);
+        }
+        return nodes;
+    }
     
     public JobSuiteStatusSnapshot getSuiteStatusSnapshot() {
-        return instance.getJobSuiteStatuses(suiteId);
+        SuiteJobIndex index = getSuiteJobIndex();
+        if (index != null) {
+            return index.getSnapshot();
+        }
+        return null;
+    }
+    public SuiteJobIndex getSuiteJobIndex() {
+        bind();
+        return boundIndex;
+    }
+    /**
+     * Gets the generation of the suite statuses this node job status
+     * was resolved from.
+     * @return suite statuses generation
+     */
+    public long getGeneration() {
+        bind();
+        return boundStatuses.getGeneration();
     }
     public ILogManager getLogManager() {
         JobSuiteStatusSnapshot snapshot = getSuiteStatusSnapshot();
@@ -157,18 +206,48 @@ public class JobStatusTreeNode implements IJobStatus, Serializable {
     }
     
     private IJobStatus getJobStatus() {
-        JobSuiteStatusSnapshot snapshot = getSuiteStatusSnapshot();
-        if (snapshot != null) {
-            return snapshot.getJobStatus(jobId);
+        bind();
+        return boundStatus;
+    }
+
+    private void bind() {
+        if (boundStatuses == null) {
+            bind(JEFMonApplication.get()
+                    .getJobSuitesStatusesMonitor().getSuiteStatuses());
         }
-        return null;
+    }
+    /**
+     * Resolves this node job status from the given suite statuses
+     * until detached.
+     * @param statuses suite statuses
+     */
+    void bind(SuiteStatuses statuses) {
+        boundStatuses = statuses;
+        boundIndex = statuses.getJobIndex(suiteId);
+        if (boundIndex != null) {
+            boundStatus = boundIndex.getJobStatus(jobId);
+        } else {
+            boundStatus = null;
+        }
+    }
+
+    /**
+     * Releases the resolved job status, so it is resolved again
+     * from the latest suite statuses next time it is needed.
+     */
+    @Override
+    public void detach() {
+        boundStatuses = null;
+        boundIndex = null;
+        boundStatus = null;
     }
     
     @Override
     public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result + ((uid == null) ? 0 : uid.hashCode());
+        result = prime * result + ((suiteId == null) ? 0 : suiteId.hashCode());
+        result = prime * result + ((jobId == null) ? 0 : jobId.hashCode());
         return result;
     }
     @Override
@@ -183,13 +262,7 @@ public class JobStatusTreeNode implements IJobStatus, Serializable {
             return false;
         }
         JobStatusTreeNode other = (JobStatusTreeNode) obj;
-        if (uid == null) {
-            if (other.uid != null) {
-                return false;
-            }
-        } else if (!uid.equals(other.uid)) {
-            return false;
-        }
-        return true;
+        return Objects.equals(suiteId, other.suiteId)
+                && Objects.equals(jobId, other.jobId);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance.tree;
+
+import java.util.Objects;
+
+import org.apache.wicket.model.LoadableDetachableModel;
+
+/**
+ * Model of a job status tree node holding only the node job identifiers,
+ * so the node is resolved again against the monitored suite statuses 
+ * when first needed after being detached.  Models of the same job
+ * are equal.
+ */
+public class JobStatusTreeNodeModel 
+        extends LoadableDetachableModel<JobStatusTreeNode> {
+
+    private static final long serialVersionUID = 1932468911538476217L;
+
+    private final String suiteId;
+    private final String jobId;
+    private final boolean root;
+
+    public JobStatusTreeNodeModel(JobStatusTreeNode node) {
+        super(node);
+        this.suiteId = node.getSuiteId();
+        this.jobId = node.getJobId();
+        this.root = node.isRoot();
+    }
+
+    @Override
+    protected JobStatusTreeNode load() {
+        return new JobStatusTreeNode(suiteId, jobId, root);
+    }
+
+    @Override
+    protected void onDetach() {
+        getObject().detach();
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + ((suiteId == null) ? 0 : suiteId.hashCode());
+        result = prime * result + ((jobId == null) ? 0 : jobId.hashCode());
+        return result;
+    }
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        JobStatusTreeNodeModel other = (JobStatusTreeNodeModel) obj;
+        return Objects.equals(suiteId, other.suiteId)
+                && Objects.equals(jobId, other.jobId);
+    }
+}
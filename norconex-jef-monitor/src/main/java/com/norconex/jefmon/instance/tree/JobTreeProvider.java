@@ -15,28 +15,63 @@
 package com.norconex.jefmon.instance.tree;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
 
-import org.apache.wicket.extensions.markup.html.repeater.data.sort.ISortState;
 import org.apache.wicket.extensions.markup.html.repeater.tree.ISortableTreeProvider;
+import org.apache.wicket.extensions.markup.html.repeater.util.SingleSortState;
+import org.apache.wicket.extensions.markup.html.repeater.util.SortParam;
 import org.apache.wicket.model.IModel;
-import org.apache.wicket.model.Model;
 
-import com.norconex.jef4.status.JobSuiteStatusSnapshot;
-import com.norconex.jefmon.instance.JEFMonInstance;
+import com.norconex.jef4.status.JobState;
+import com.norconex.jefmon.JEFMonApplication;
+import com.norconex.jefmon.instance.JobSearchResult;
+import com.norconex.jefmon.instance.JobSortProperty;
+import com.norconex.jefmon.instance.SuiteStatuses;
 
-public class JobTreeProvider 
-        implements ISortableTreeProvider<JobStatusTreeNode, Void> {
+/**
+ * Provides job status tree nodes one page of root suites at a time.
+ * Only root suites of the current page are returned by 
+ * {@link #getRoots()} and children are only obtained for nodes being
+ * expanded.  Nodes are resolved against the application monitored
+ * instance and modeled by their job identifiers only.
+ * <p>
+ * When searching jobs by id or state, only jobs found and their
+ * ancestors are returned (with all children of jobs found), and 
+ * ancestors of jobs found are expanded until collapsed.  Jobs are found
+ * with the job search index of the current generation, and search 
+ * results are kept until the generation changes.
+ * <p>
+ * Root suites are sorted by suite id unless sorted by a 
+ * {@link JobSortProperty} of their root job, using suite orders sorted 
+ * once per generation.  Children are then sorted by the same property,
+ * using orders of the children of each job also kept per generation.
+ */
+public class JobTreeProvider implements 
+        ISortableTreeProvider<JobStatusTreeNode, JobSortProperty> {
 
     private static final long serialVersionUID = -7140490848913529419L;
 
-    private final JEFMonInstance instance;
+    public static final int DEFAULT_ROOTS_PER_PAGE = 25;
+    
+    private int rootsPerPage = DEFAULT_ROOTS_PER_PAGE;
+    private long currentPage;
+    private final SingleSortState<JobSortProperty> sortState = 
+            new SingleSortState<>();
+    private String searchText;
+    private JobState searchState;
+    // Whether ancestors of jobs found are expanded, except collapsed ones.
+    private boolean searchExpanding = true;
+    private final Set<JobStatusTreeNode> searchCollapsed = new HashSet<>();
+    private transient JobSearchResult searchResult;
+    private transient long searchGeneration;
 
-    public JobTreeProvider(final JEFMonInstance instance) {
+    public JobTreeProvider() {
         super();
-        this.instance = instance;
     }
 
     @Override
@@ -47,34 +82,258 @@ public class JobTreeProvider
     @Override
     public Iterator<? extends JobStatusTreeNode> getChildren(
             JobStatusTreeNode jobStatusNode) {
-        return jobStatusNode.getChildren().iterator();
+        SortParam<JobSortProperty> sort = sortState.getSort();
+        List<JobStatusTreeNode> children;
+        if (sort != null) {
+            children = jobStatusNode.getChildren(
+                    sort.getProperty(), sort.isAscending());
+        } else {
+            children = jobStatusNode.getChildren();
+        }
+        if (isSearchFiltered(jobStatusNode)) {
+            JobSearchResult result = getSearchResult();
+            Iterator<JobStatusTreeNode> it = children.iterator();
+            while (it.hasNext()) {
+                JobStatusTreeNode child = it.next();
+                if (!result.isMatch(child.getSuiteId(), child.getJobId())
+                        && !result.isAncestor(
+                                child.getSuiteId(), child.getJobId())) {
+                    it.remove();
+                }
+            }
+        }
+        return children.iterator();
     }
 
+    /**
+     * Gets the root suites of the current page.
+     * @return root suite nodes
+     */
     @Override
     public Iterator<? extends JobStatusTreeNode> getRoots() {
+        return getRoots(getCurrentPage() * rootsPerPage, rootsPerPage);
+    }
+    /**
+     * Gets a range of root suites, in sort order.
+     * @param first index of the first root suite to return
+     * @param count maximum number of root suites to return
+     * @return root suite nodes
+     */
+    public Iterator<? extends JobStatusTreeNode> getRoots(
+            long first, long count) {
+        SuiteStatuses statuses = getSuiteStatuses();
+        SortParam<JobSortProperty> sort = sortState.getSort();
+        List<String> suiteIds;
+        if (sort != null) {
+            suiteIds = statuses.getSortOrders().getSuiteIds(
+                    sort.getProperty(), sort.isAscending());
+            if (isSearching()) {
+                JobSearchResult result = getSearchResult(statuses);
+                List<String> foundIds = new ArrayList<>();
+                for (String suiteId : suiteIds) {
+                    if (result.hasSuite(suiteId)) {
+                        foundIds.add(suiteId);
+                    }
+                }
+                suiteIds = foundIds;
+            }
+            int from = (int) Math.min(Math.max(0, first), suiteIds.size());
+            int to = from + (int) Math.min(
+                    Math.max(0, count), suiteIds.size() - from);
+            suiteIds = suiteIds.subList(from, to);
+        } else if (isSearching()) {
+            suiteIds = getSearchResult(statuses).getSuiteIds(first, count);
+        } else {
+            suiteIds = statuses.getSuiteIds(first, count);
+        }
         List<JobStatusTreeNode> roots = new ArrayList<JobStatusTreeNode>();
-        Collection<JobSuiteStatusSnapshot> suitesStatuses =
-                instance.getJobSuitesStatuses();
-        for (JobSuiteStatusSnapshot suiteStatuses : suitesStatuses) {
-            roots.add(new JobStatusTreeNode(
-                    instance, suiteStatuses.getRoot().getJobId(), 
-                    suiteStatuses.getRoot().getJobId(), true));
+        for (String suiteId : suiteIds) {
+            JobStatusTreeNode root = 
+                    new JobStatusTreeNode(suiteId, suiteId, true);
+            root.bind(statuses);
+            roots.add(root);
         }
         return roots.iterator();
     }
+    /**
+     * Gets the total number of root suites.
+     * @return root suite count
+     */
+    public long size() {
+        SuiteStatuses statuses = getSuiteStatuses();
+        if (isSearching()) {
+            return getSearchResult(statuses).getSuiteIds().size();
+        }
+        return statuses.getSuiteIds().size();
+    }
+
+    /**
+     * Gets the generation of suite statuses nodes are obtained from.
+     * @return suite statuses generation
+     */
+    public long getGeneration() {
+        return getSuiteStatuses().getGeneration();
+    }
+
+    public int getRootsPerPage() {
+        return rootsPerPage;
+    }
+    /**
+     * Sets the number of root suites per page, keeping the first root
+     * suite of the current page on the new current page.
+     * @param rootsPerPage number of root suites per page
+     */
+    public void setRootsPerPage(int rootsPerPage) {
+        if (rootsPerPage < 1) {
+            throw new IllegalArgumentException(
+                    "Roots per page must be greater than zero.");
+        }
+        long first = getCurrentPage() * this.rootsPerPage;
+        this.rootsPerPage = rootsPerPage;
+        this.currentPage = first / rootsPerPage;
+    }
+    /**
+     * Gets the current page, which is the last page if root suites
+     * were removed since it was set.
+     * @return zero-based current page
+     */
+    public long getCurrentPage() {
+        return Math.max(0, Math.min(currentPage, getPageCount() - 1));
+    }
+    public void setCurrentPage(long page) {
+        this.currentPage = Math.max(0, page);
+    }
+    public long getPageCount() {
+        return (size() + rootsPerPage - 1) / rootsPerPage;
+    }
+
+    public String getSearchText() {
+        return searchText;
+    }
+    /**
+     * Sets the text to find in job ids, going back to the first page.
+     * @param searchText search text
+     * @see com.norconex.jefmon.instance.JobSearchIndex#search(
+     *      String, JobState)
+     */
+    public void setSearchText(String searchText) {
+        this.searchText = searchText;
+        resetSearch();
+    }
+    public JobState getSearchState() {
+        return searchState;
+    }
+    /**
+     * Sets the state of jobs to find, going back to the first page.
+     * @param searchState job state
+     */
+    public void setSearchState(JobState searchState) {
+        this.searchState = searchState;
+        resetSearch();
+    }
+    /**
+     * Gets whether jobs are searched by id or state.
+     * @return <code>true</code> if searching
+     */
+    public boolean isSearching() {
+        return StringUtils.isNotBlank(searchText) || searchState != null;
+    }
+    /**
+     * Gets jobs found in the current generation.
+     * @return search result or <code>null</code> if not searching
+     */
+    public JobSearchResult getSearchResult() {
+        if (!isSearching()) {
+            return null;
+        }
+        return getSearchResult(getSuiteStatuses());
+    }
+    /**
+     * Gets whether a node job was found by the current search.
+     * @param node tree node
+     * @return <code>true</code> if found
+     */
+    public boolean isSearchMatch(JobStatusTreeNode node) {
+        return isSearching() && getSearchResult().isMatch(
+                node.getSuiteId(), node.getJobId());
+    }
+    /**
+     * Gets whether a node is expanded for being an ancestor of a job
+     * found by the current search.
+     * @param node tree node
+     * @return <code>true</code> if expanded by the current search
+     */
+    public boolean isSearchExpanded(JobStatusTreeNode node) {
+        return isSearching() && searchExpanding 
+                && !searchCollapsed.contains(node)
+                && getSearchResult().isAncestor(
+                        node.getSuiteId(), node.getJobId());
+    }
+    /**
+     * Sets whether a node expanded for being an ancestor of a job
+     * found by the current search stays expanded.
+     * @param node tree node
+     * @param expanded <code>false</code> if collapsed
+     */
+    public void setSearchExpanded(JobStatusTreeNode node, boolean expanded) {
+        if (expanded) {
+            searchCollapsed.remove(node);
+        } else if (isSearching()) {
+            searchCollapsed.add(node);
+        }
+    }
+    /**
+     * Collapses all nodes expanded for being ancestors of jobs found
+     * by the current search.
+     */
+    public void collapseSearch() {
+        searchExpanding = false;
+    }
+
+    // Children of jobs not found are limited to those found and
+    // their ancestors.
+    private boolean isSearchFiltered(JobStatusTreeNode node) {
+        return isSearching() && !isSearchMatch(node);
+    }
+    private JobSearchResult getSearchResult(SuiteStatuses statuses) {
+        if (searchResult == null 
+                || searchGeneration != statuses.getGeneration()) {
+            searchResult = statuses.getSearchIndex().search(
+                    searchText, searchState);
+            searchGeneration = statuses.getGeneration();
+        }
+        return searchResult;
+    }
+    private void resetSearch() {
+        searchResult = null;
+        searchExpanding = true;
+        searchCollapsed.clear();
+        currentPage = 0;
+    }
 
     @Override
     public boolean hasChildren(JobStatusTreeNode jobStatusNode) {
+        if (isSearchFiltered(jobStatusNode)) {
+            return getSearchResult().isAncestor(
+                    jobStatusNode.getSuiteId(), jobStatusNode.getJobId());
+        }
         return jobStatusNode.hasChildren();
     }
 
     @Override
     public IModel<JobStatusTreeNode> model(JobStatusTreeNode jobStatusNode) {
-        return new Model<JobStatusTreeNode>(jobStatusNode);
+        return new JobStatusTreeNodeModel(jobStatusNode);
     }
 
     @Override
-    public ISortState<Void> getSortState() {
-        return null;
+    public SingleSortState<JobSortProperty> getSortState() {
+        return sortState;
+    }
+
+    // Statuses of the application monitored instance (package-private
+    // for tests).
+    SuiteStatuses getSuiteStatuses() {
+        return JEFMonApplication.get()
+                .getJobSuitesStatusesMonitor().getSuiteStatuses();
     }
 }
@@ -14,36 +14,272 @@
  */
 package com.norconex.jefmon.instance.tree;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.wicket.Component;
+import org.apache.wicket.AttributeModifier;
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.ajax.json.JSONArray;
+import org.apache.wicket.ajax.json.JSONException;
+import org.apache.wicket.ajax.json.JSONObject;
+import org.apache.wicket.extensions.ajax.markup.html.repeater.data.sort.AjaxFallbackOrderByBorder;
+import org.apache.wicket.extensions.ajax.markup.html.repeater.data.table.AjaxFallbackHeadersToolbar;
+import org.apache.wicket.extensions.markup.html.repeater.data.grid.DataGridView;
+import org.apache.wicket.extensions.markup.html.repeater.data.sort.ISortStateLocator;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.DataTable;
 import org.apache.wicket.extensions.markup.html.repeater.data.table.IColumn;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.IStyledColumn;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.NoRecordsToolbar;
 import org.apache.wicket.extensions.markup.html.repeater.data.table.PropertyColumn;
-import org.apache.wicket.extensions.markup.html.repeater.tree.DefaultTableTree;
 import org.apache.wicket.extensions.markup.html.repeater.tree.Node;
+import org.apache.wicket.extensions.markup.html.repeater.tree.TableTree;
+import org.apache.wicket.extensions.markup.html.repeater.tree.table.NodeModel;
 import org.apache.wicket.extensions.markup.html.repeater.tree.table.TreeColumn;
+import org.apache.wicket.extensions.markup.html.repeater.tree.theme.WindowsTheme;
+import org.apache.wicket.markup.head.IHeaderResponse;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.markup.html.navigation.paging.IPageableItems;
+import org.apache.wicket.markup.repeater.IItemFactory;
+import org.apache.wicket.markup.repeater.IItemReuseStrategy;
+import org.apache.wicket.markup.repeater.Item;
+import org.apache.wicket.markup.repeater.OddEvenItem;
+import org.apache.wicket.markup.repeater.data.IDataProvider;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.ResourceModel;
 
 import com.norconex.commons.wicket.behaviors.CssClass;
+import com.norconex.commons.wicket.markup.head.HeaderContributor;
+import com.norconex.jefmon.instance.JobSortProperty;
 
-public class JobsTableTree extends DefaultTableTree<JobStatusTreeNode, Void>{
+/**
+ * Job status tree table, paged by root suites.  Paging a table tree by
+ * rows would still require all root suites to be obtained, so pages
+ * are instead made of root suites obtained from the 
+ * {@link JobTreeProvider}, each shown with all its expanded descendants.
+ * <p>
+ * Each row keeps a version of the data it shows, and is only created again
+ * when its version changed.  {@link #refresh(AjaxRequestTarget)} relies on
+ * it to only send rows added or changed since the last refresh.
+ * Rows identify the job they show with <code>data-jef-suite</code>,
+ * <code>data-jef-job</code>, and <code>data-jef-state</code> attributes,
+ * for job status changes pushed to the browser to be applied to them.
+ * Rows of jobs found by the provider current search have the
+ * <code>jef-tree-match</code> CSS class.
+ * <p>
+ * Sortable column headers sort jobs with the provider sort state and
+ * update the whole tree.
+ */
+public class JobsTableTree 
+        extends TableTree<JobStatusTreeNode, JobSortProperty>
+        implements IPageableItems {
 
     private static final long serialVersionUID = 6386274038061059124L;
 
+    private long renderedGeneration = -1;
+
     public JobsTableTree(String id,
             JobTreeProvider provider,
-            int rowsPerPage, 
             IModel<Set<JobStatusTreeNode>> state) {
-        super(id, createColumns(), provider, rowsPerPage, state);
+        super(id, createColumns(), provider, Integer.MAX_VALUE, state);
+        getTable().addTopToolbar(new AjaxFallbackHeadersToolbar<
+                JobSortProperty>(getTable(), provider) {
+            private static final long serialVersionUID = 
+                    -2398637411474556541L;
+            @Override
+            protected WebMarkupContainer newSortableHeader(String headerId,
+                    JobSortProperty property,
+                    ISortStateLocator<JobSortProperty> locator) {
+                return new AjaxFallbackOrderByBorder<JobSortProperty>(
+                        headerId, property, locator, getAjaxCallListener()) {
+                    private static final long serialVersionUID = 
+                            8155924394337010127L;
+                    @Override
+                    protected void onAjaxClick(AjaxRequestTarget target) {
+                        target.add(JobsTableTree.this);
+                    }
+                };
+            }
+        });
+        getTable().addBottomToolbar(new NoRecordsToolbar(getTable()));
+        add(new WindowsTheme());
+        setItemReuseStrategy(new RowVersionReuseStrategy());
+    }
+
+    @Override
+    public JobTreeProvider getProvider() {
+        return (JobTreeProvider) super.getProvider();
+    }
+
+    @Override
+    protected DataTable<JobStatusTreeNode, JobSortProperty> newDataTable(
+            String id,
+            List<? extends IColumn<JobStatusTreeNode, JobSortProperty>> 
+                    columns,
+            IDataProvider<JobStatusTreeNode> dataProvider, long rowsPerPage) {
+        return new RowsTable(id, columns, dataProvider, rowsPerPage);
+    }
+
+    @Override
+    public long getCurrentPage() {
+        return getProvider().getCurrentPage();
+    }
+    @Override
+    public void setCurrentPage(long page) {
+        getProvider().setCurrentPage(page);
+    }
+    @Override
+    public long getPageCount() {
+        return getProvider().getPageCount();
+    }
+    @Override
+    public long getItemCount() {
+        return getProvider().size();
+    }
+    @Override
+    public long getItemsPerPage() {
+        return getProvider().getRootsPerPage();
+    }
+    @Override
+    public void setItemsPerPage(long items) {
+        getProvider().setRootsPerPage((int) items);
     }
 
     @Override
     protected void onInitialize() {
         super.onInitialize();
         getTable().add(new CssClass("table table-condensed small"));
+        getTable().getBody().setOutputMarkupId(true);
+    }
+
+    @Override
+    protected void onBeforeRender() {
+        super.onBeforeRender();
+        renderedGeneration = getProvider().getGeneration();
+    }
+
+    @Override
+    public State getState(JobStatusTreeNode node) {
+        if (getProvider().isSearchExpanded(node)) {
+            return State.EXPANDED;
+        }
+        return super.getState(node);
+    }
+    @Override
+    public void expand(JobStatusTreeNode node) {
+        getProvider().setSearchExpanded(node, true);
+        super.expand(node);
+    }
+    @Override
+    public void collapse(JobStatusTreeNode node) {
+        getProvider().setSearchExpanded(node, false);
+        super.collapse(node);
+    }
+
+    /**
+     * Gets the generation of suite statuses last rendered or refreshed.
+     * @return generation number
+     */
+    public long getRenderedGeneration() {
+        return renderedGeneration;
+    }
+
+    /**
+     * Updates the tree with the latest job statuses, sending only rows
+     * that were added or that changed since the last refresh, and
+     * removing rows no longer shown.  Rows are obtained again through
+     * the item reuse strategy, which keeps unchanged rows and gives
+     * changed rows the markup id of the row they replace.  Rows added
+     * or removed are described to <code>JobsTableTree.js</code>, which
+     * inserts placeholders for added rows before they are sent.
+     * The whole tree is sent instead when most rows changed or when
+     * rows were moved.
+     * @param target AJAX request target
+     */
+    public void refresh(AjaxRequestTarget target) {
+        long generation = getProvider().getGeneration();
+        if (generation == renderedGeneration) {
+            return;
+        }
+        RowsTable.RowsView rows = 
+                (RowsTable.RowsView) getTable().getBody().get("rows");
+        Map<String, Component> oldRows = new LinkedHashMap<>();
+        for (Component row : rows) {
+            oldRows.put(row.getMarkupId(), row);
+        }
+        List<String> oldIds = new ArrayList<>(oldRows.keySet());
+        rows.populate();
+        renderedGeneration = generation;
+
+        List<String> keptIds = new ArrayList<>();
+        List<Component> sentRows = new ArrayList<>();
+        JSONArray inserted = new JSONArray();
+        String previousId = null;
+        for (Component row : rows) {
+            String id = row.getMarkupId();
+            Component oldRow = oldRows.remove(id);
+            if (oldRow == null) {
+                inserted.put(new JSONArray().put(id).put(
+                        previousId == null ? JSONObject.NULL : previousId));
+                sentRows.add(row);
+            } else {
+                keptIds.add(id);
+                if (oldRow != row) {
+                    sentRows.add(row);
+                }
+            }
+            previousId = id;
+        }
+        if (sentRows.size() > rows.size() / 2
+                || !isSameOrder(keptIds, oldIds)) {
+            target.add(this);
+            return;
+        }
+        if (inserted.length() > 0 || !oldRows.isEmpty()) {
+            JSONObject changes = new JSONObject();
+            try {
+                changes.put("body", getTable().getBody().getMarkupId());
+                changes.put("removed", new JSONArray(oldRows.keySet()));
+                changes.put("inserted", inserted);
+            } catch (JSONException e) {
+                throw new WicketRuntimeException(
+                        "Cannot create tree row changes.", e);
+            }
+            target.prependJavaScript(
+                    "JEFMonTableTree.updateRows(" + changes + ");");
+        }
+        for (Component row : sentRows) {
+            target.add(row);
+        }
+    }
+
+    // Whether rows kept are in the same order as before, ignoring
+    // removed rows.
+    private boolean isSameOrder(List<String> keptIds, List<String> oldIds) {
+        int i = 0;
+        for (String oldId : oldIds) {
+            if (i < keptIds.size() && keptIds.get(i).equals(oldId)) {
+                i++;
+            }
+        }
+        return i == keptIds.size();
+    }
+
+    @Override
+    public void renderHead(IHeaderResponse response) {
+        super.renderHead(response);
+        HeaderContributor.addJavascript(
+                response, JobsTableTree.class, "JobsTableTree.js");
     }
     
     @Override
@@ -77,24 +313,175 @@ public class JobsTableTree extends DefaultTableTree<JobStatusTreeNode, Void>{
         return node;
     }
     
+    @Override
+    protected Item<JobStatusTreeNode> newRowItem(
+            String id, int index, IModel<JobStatusTreeNode> model) {
+        Item<JobStatusTreeNode> item = 
+                new RowItem(id, index, model, getRowVersion(model));
+        item.setOutputMarkupId(true);
+        JobStatusTreeNode node = model.getObject();
+        item.add(new AttributeModifier("data-jef-suite", node.getSuiteId()));
+        item.add(new AttributeModifier("data-jef-job", node.getJobId()));
+        item.add(new AttributeModifier("data-jef-state", 
+                Objects.toString(node.getState(), "")));
+        if (getProvider().isSearchMatch(node)) {
+            item.add(new CssClass("jef-tree-match"));
+        }
+        return item;
+    }
+
+    // What a row shows and which can change for the same job.
+    private Serializable getRowVersion(IModel<?> model) {
+        JobStatusTreeNode node = (JobStatusTreeNode) model.getObject();
+        boolean[] branches = null;
+        if (model instanceof NodeModel) {
+            branches = ((NodeModel<?>) model).getBranches();
+        }
+        return new ArrayList<>(Arrays.asList(
+                node.getState(), 
+                node.getProgress(), 
+                node.getNote(), 
+                node.getLastActivity(),
+                node.getDuration().getStartTime(),
+                node.getDuration().getEndTime(),
+                getProvider().hasChildren(node), 
+                getState(node),
+                getProvider().isSearchMatch(node),
+                Arrays.toString(branches)));
+    }
+
     @Override
     protected Component newContentComponent(String id,
             IModel<JobStatusTreeNode> model) {
         return new JEFFolder(id, this, model);
     }
 
-    private static List<IColumn<JobStatusTreeNode, Void>> createColumns() {
-        List<IColumn<JobStatusTreeNode, Void>> columns =
-                new ArrayList<IColumn<JobStatusTreeNode, Void>>();
-        columns.add(new TreeColumn<JobStatusTreeNode, Void>(
+    private static class RowItem extends OddEvenItem<JobStatusTreeNode> {
+        private static final long serialVersionUID = -2896435476312264531L;
+        // Not kept in the page store: rows of a page read back from it
+        // are created again.
+        private final transient Serializable version;
+        public RowItem(String id, int index, 
+                IModel<JobStatusTreeNode> model, Serializable version) {
+            super(id, index, model);
+            this.version = version;
+        }
+    }
+
+    // Reuses existing rows whose version did not change.
+    private class RowVersionReuseStrategy implements IItemReuseStrategy {
+        private static final long serialVersionUID = 8251012585716546932L;
+        @Override
+        public <T> Iterator<Item<T>> getItems(IItemFactory<T> factory,
+                Iterator<IModel<T>> newModels, 
+                Iterator<Item<T>> existingItems) {
+            Map<T, Item<T>> existing = new HashMap<>();
+            while (existingItems.hasNext()) {
+                Item<T> item = existingItems.next();
+                existing.put(item.getModelObject(), item);
+            }
+            List<Item<T>> items = new ArrayList<>();
+            int index = 0;
+            while (newModels.hasNext()) {
+                IModel<T> model = newModels.next();
+                Item<T> item = existing.get(model.getObject());
+                if (item instanceof RowItem && getRowVersion(model).equals(
+                        ((RowItem) item).version)) {
+                    item.setIndex(index);
+                } else if (item != null) {
+                    // Replaces the row in the browser when refreshed.
+                    String markupId = item.getMarkupId();
+                    item = factory.newItem(index, model);
+                    item.setMarkupId(markupId);
+                } else {
+                    item = factory.newItem(index, model);
+                }
+                items.add(item);
+                index++;
+            }
+            return items.iterator();
+        }
+    }
+
+    // Table whose rows can be obtained again outside rendering.
+    private class RowsTable 
+            extends DataTable<JobStatusTreeNode, JobSortProperty> {
+        private static final long serialVersionUID = -4621003757265349871L;
+        public RowsTable(String id,
+                List<? extends IColumn<JobStatusTreeNode, JobSortProperty>> 
+                        columns,
+                IDataProvider<JobStatusTreeNode> dataProvider, 
+                long rowsPerPage) {
+            super(id, columns, dataProvider, rowsPerPage);
+        }
+        @Override
+        protected DataGridView<JobStatusTreeNode> newDataGridView(String id,
+                List<? extends IColumn<JobStatusTreeNode, JobSortProperty>> 
+                        columns,
+                IDataProvider<JobStatusTreeNode> dataProvider) {
+            return new RowsView(id, columns, dataProvider);
+        }
+        @Override
+        protected Item<JobStatusTreeNode> newRowItem(
+                String id, int index, IModel<JobStatusTreeNode> model) {
+            return JobsTableTree.this.newRowItem(id, index, model);
+        }
+
+        private class RowsView extends DataGridView<JobStatusTreeNode> {
+            private static final long serialVersionUID = 
+                    2184962630786472025L;
+            public RowsView(String id,
+                    List<? extends IColumn<JobStatusTreeNode, 
+                            JobSortProperty>> columns,
+                    IDataProvider<JobStatusTreeNode> dataProvider) {
+                super(id, columns, dataProvider);
+            }
+            // Creates rows again with the item reuse strategy, as done 
+            // before rendering.
+            private void populate() {
+                onPopulate();
+            }
+            @SuppressWarnings({ "rawtypes", "unchecked" })
+            @Override
+            protected Item newCellItem(String id, int index, IModel model) {
+                Item item = RowsTable.this.newCellItem(id, index, model);
+                Object column = getPopulators().get(index);
+                if (column instanceof IStyledColumn) {
+                    String css = ((IStyledColumn) column).getCssClass();
+                    if (StringUtils.isNotBlank(css)) {
+                        item.add(new CssClass(css));
+                    }
+                }
+                return item;
+            }
+            @Override
+            protected Item<JobStatusTreeNode> newRowItem(
+                    String id, int index, IModel<JobStatusTreeNode> model) {
+                return RowsTable.this.newRowItem(id, index, model);
+            }
+        }
+    }
+
+    private static List<IColumn<JobStatusTreeNode, JobSortProperty>> 
+            createColumns() {
+        List<IColumn<JobStatusTreeNode, JobSortProperty>> columns =
+                new ArrayList<IColumn<JobStatusTreeNode, JobSortProperty>>();
+        columns.add(new TreeColumn<JobStatusTreeNode, JobSortProperty>(
                 new ResourceModel("col.job")));
         columns.add(new ProgressColumn(new ResourceModel("col.progress")));
         columns.add(new StatusColumn(new ResourceModel("col.status")));
         columns.add(new DateStartedColumn(new ResourceModel("col.started")));
         columns.add(new DurationColumn(new ResourceModel("col.duration")));
         columns.add(new RemainingColumn(new ResourceModel("col.remaining")));
-        columns.add(new PropertyColumn<JobStatusTreeNode, Void>(
-                new ResourceModel("col.note"), "note"));
+        columns.add(new PropertyColumn<JobStatusTreeNode, JobSortProperty>(
+                new ResourceModel("col.note"), "note") {
+            private static final long serialVersionUID = 
+                    -3725441410565376164L;
+            @Override
+            public String getCssClass() {
+                return "jef-tree-note";
+            }
+        });
 
         columns.add(new ActionsColumn(new ResourceModel("col.actions")));
 
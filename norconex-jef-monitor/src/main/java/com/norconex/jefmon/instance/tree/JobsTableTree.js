@@ -0,0 +1,51 @@
+/*
+   Copyright 2017 Norconex Inc.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+/*
+ * Applies rows added or removed by a job status tree refresh, before 
+ * the rows sent replace the placeholders inserted here.
+ */
+var JEFMonTableTree = JEFMonTableTree || (function($) {
+
+    return {
+        // Changes are: "body", the id of the table body, "removed", the 
+        // ids of rows removed, and "inserted", the ids of rows added each
+        // with the id of the row preceding it (null when first).
+        updateRows: function(changes) {
+            var body = document.getElementById(changes.body);
+            if (!body) {
+                return;
+            }
+            $.each(changes.removed, function(i, id) {
+                $(document.getElementById(id)).remove();
+            });
+            $.each(changes.inserted, function(i, row) {
+                var placeholder = $('<tr></tr>').attr('id', row[0]);
+                var previous = row[1] && document.getElementById(row[1]);
+                if (previous) {
+                    $(previous).after(placeholder);
+                } else {
+                    $(body).prepend(placeholder);
+                }
+            });
+            // Rows sent have their class already, other rows may
+            // have moved.
+            $(body).children('tr').each(function(i) {
+                $(this).toggleClass('even', i % 2 === 0)
+                        .toggleClass('odd', i % 2 === 1);
+            });
+        }
+    };
+})(jQuery);
@@ -23,13 +23,14 @@ import org.apache.wicket.model.IModel;
 
 import com.norconex.commons.wicket.bootstrap.progress.BootstrapProgressBar;
 import com.norconex.jef4.status.JobState;
+import com.norconex.jefmon.instance.JobSortProperty;
 
 public class ProgressColumn extends AbstractJefColumn {
 
     private static final long serialVersionUID = -4129824825592867125L;
 
     public ProgressColumn(IModel<String> displayModel) {
-        super(displayModel);
+        super(displayModel, JobSortProperty.PROGRESS);
     }
 
     @Override
@@ -47,21 +48,35 @@ public class ProgressColumn extends AbstractJefColumn {
 
         BootstrapProgressBar bar = new BootstrapProgressBar(markupId);
         bar.setPercent(jobStatus.getProgress());
+        String barCssClass = getBarCssClass(state, percent);
+        if (barCssClass != null) {
+            bar.setBarCssClass(barCssClass);
+        }
+        item.add(bar);
+    }
+
+    /**
+     * Gets the CSS class of a job progress bar.
+     * @param state job state
+     * @param percent job progress percentage
+     * @return CSS class or <code>null</code> for the default bar
+     */
+    static String getBarCssClass(JobState state, int percent) {
         if (state == JobState.ABORTED 
                 || state == JobState.PREMATURE_TERMINATION) {
-            bar.setBarCssClass("progress-bar-danger");
+            return "progress-bar-danger";
         } else if (percent > 100) {
-            bar.setBarCssClass("progress-bar-warning");
+            return "progress-bar-warning";
         } else if (state == JobState.COMPLETED) {
-            bar.setBarCssClass("progress-bar-success");
+            return "progress-bar-success";
         } else if (state == JobState.STOPPING) {
-            bar.setBarCssClass("progress-bar-info");
+            return "progress-bar-info";
         } else if (state == JobState.STOPPED) {
-            bar.setBarCssClass("progress-bar-info");
+            return "progress-bar-info";
         } else if (state == JobState.RUNNING) {
-            bar.setBarCssClass("progress-bar-striped active");
+            return "progress-bar-striped active";
         }
-        item.add(bar);
+        return null;
     }
     @Override
     public String getCssClass() {
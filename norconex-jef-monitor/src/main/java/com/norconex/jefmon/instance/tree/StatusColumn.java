@@ -21,13 +21,14 @@ import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.ResourceModel;
 
 import com.norconex.jef4.status.JobState;
+import com.norconex.jefmon.instance.JobSortProperty;
 
 public class StatusColumn extends AbstractJefColumn {
 
     private static final long serialVersionUID = -4129824825592867125L;
 
     public StatusColumn(IModel<String> displayModel) {
-        super(displayModel);
+        super(displayModel, JobSortProperty.STATE);
     }
 
     @Override
@@ -0,0 +1,317 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance.tree;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.commons.lang3.CharEncoding;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.wicket.Page;
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.ajax.json.JSONException;
+import org.apache.wicket.ajax.json.JSONObject;
+import org.apache.wicket.ajax.json.JSONWriter;
+import org.apache.wicket.behavior.AbstractAjaxBehavior;
+import org.apache.wicket.extensions.markup.html.repeater.data.sort.SortOrder;
+import org.apache.wicket.extensions.markup.html.repeater.tree.AbstractTree.State;
+import org.apache.wicket.extensions.markup.html.repeater.util.SingleSortState;
+import org.apache.wicket.extensions.markup.html.repeater.util.SortParam;
+import org.apache.wicket.markup.head.IHeaderResponse;
+import org.apache.wicket.markup.head.OnDomReadyHeaderItem;
+import org.apache.wicket.markup.html.panel.Panel;
+import org.apache.wicket.request.IRequestParameters;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.request.handler.TextRequestHandler;
+
+import com.norconex.commons.wicket.markup.head.HeaderContributor;
+import com.norconex.jef4.status.JobState;
+import com.norconex.jefmon.instance.JobSortProperty;
+
+/**
+ * Job status tree rendered by the browser one window of rows at a time,
+ * for trees too large to be rendered whole.  The browser only holds rows
+ * visible while scrolling, plus a few more, and fetches them by range
+ * from this panel as JSON:
+ * <pre>
+ * {"generation": 12, "total": 1000, "from": 40, 
+ *  "sort": {"property": "PROGRESS", "ascending": true},
+ *  "rows": [{"suite": "suite", "job": "job", "depth": 1, 
+ *            "branch": true, "expanded": false, "match": false,
+ *            "state": "RUNNING", "status": "Running", "icon": "...",
+ *            "bar": "...", "percent": 50, "started": "...", 
+ *            "duration": "...", "note": "..."}]}
+ * </pre>
+ * Expanded jobs, searches, and sorting are the ones of the 
+ * {@link JobsTableTree} given, which is not rendered itself.  Its rows
+ * are flattened once per generation, or when expanding, collapsing,
+ * or sorting.  Rows have the same <code>data-jef-*</code> attributes
+ * and progress bar markup as tree table rows, for job status changes
+ * pushed to the browser to be applied to them.
+ */
+@SuppressWarnings("nls")
+public class VirtualJobTree extends Panel {
+
+    private static final long serialVersionUID = -7305412356284918723L;
+
+    /** Height of every row, in pixels. */
+    public static final int ROW_HEIGHT = 24;
+    /** Maximum number of rows returned per request. */
+    public static final int MAX_RANGE = 500;
+
+    private final JobsTableTree tree;
+    private final RowsBehavior rowsBehavior;
+    private transient List<Row> rows;
+    private transient long rowsGeneration;
+
+    public VirtualJobTree(String id, JobsTableTree tree) {
+        super(id);
+        this.tree = tree;
+        setOutputMarkupId(true);
+        rowsBehavior = new RowsBehavior();
+        add(rowsBehavior);
+    }
+
+    /**
+     * Gets the tree table holding expanded jobs, searches, and sorting.
+     * @return job status tree table
+     */
+    public JobsTableTree getTree() {
+        return tree;
+    }
+
+    /**
+     * Gets the number of rows shown when scrolling, which are root
+     * suites and their expanded descendants.
+     * @return row count
+     */
+    public int getRowCount() {
+        return getRows().size();
+    }
+
+    /**
+     * Forgets rows flattened so far, for when expanded jobs, searches, 
+     * or sorting changed.
+     */
+    public void invalidateRows() {
+        rows = null;
+    }
+
+    @Override
+    protected void onBeforeRender() {
+        invalidateRows();
+        super.onBeforeRender();
+    }
+
+    @Override
+    public void renderHead(IHeaderResponse response) {
+        super.renderHead(response);
+        HeaderContributor.addJavascript(
+                response, VirtualJobTree.class, "VirtualJobTree.js");
+        JSONObject cfg = new JSONObject();
+        try {
+            cfg.put("id", getMarkupId());
+            cfg.put("url", rowsBehavior.getCallbackUrl().toString());
+            cfg.put("rowHeight", ROW_HEIGHT);
+            cfg.put("maxRange", MAX_RANGE);
+        } catch (JSONException e) {
+            throw new WicketRuntimeException(
+                    "Cannot create virtual tree configuration.", e);
+        }
+        response.render(OnDomReadyHeaderItem.forScript(
+                "JEFMonVirtualTree.init(" + cfg + ");"));
+    }
+
+    private List<Row> getRows() {
+        JobTreeProvider provider = tree.getProvider();
+        long generation = provider.getGeneration();
+        if (rows == null || rowsGeneration != generation) {
+            List<Row> newRows = new ArrayList<>();
+            Iterator<? extends JobStatusTreeNode> it = 
+                    provider.getRoots(0, provider.size());
+            while (it.hasNext()) {
+                addRows(newRows, it.next(), 0);
+            }
+            rows = newRows;
+            rowsGeneration = generation;
+        }
+        return rows;
+    }
+    private void addRows(List<Row> rows, JobStatusTreeNode node, int depth) {
+        JobTreeProvider provider = tree.getProvider();
+        boolean branch = provider.hasChildren(node);
+        boolean expanded = branch && tree.getState(node) == State.EXPANDED;
+        rows.add(new Row(node, depth, branch, expanded));
+        if (expanded) {
+            Iterator<? extends JobStatusTreeNode> it = 
+                    provider.getChildren(node);
+            while (it.hasNext()) {
+                addRows(rows, it.next(), depth + 1);
+            }
+        }
+    }
+
+    private void toggle(String suiteId, String jobId) {
+        if (StringUtils.isBlank(suiteId) || StringUtils.isBlank(jobId)) {
+            return;
+        }
+        JobStatusTreeNode node = new JobStatusTreeNode(
+                suiteId, jobId, suiteId.equals(jobId));
+        if (tree.getState(node) == State.EXPANDED) {
+            tree.collapse(node);
+        } else {
+            tree.expand(node);
+        }
+        invalidateRows();
+    }
+
+    // Sorts ascending, then descending, then by suite id.
+    private void sort(String propertyName) {
+        JobSortProperty property;
+        try {
+            property = JobSortProperty.valueOf(propertyName);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return;
+        }
+        SingleSortState<JobSortProperty> sortState = 
+                tree.getProvider().getSortState();
+        SortParam<JobSortProperty> sort = sortState.getSort();
+        if (sort == null || sort.getProperty() != property) {
+            sortState.setPropertySortOrder(property, SortOrder.ASCENDING);
+        } else if (sort.isAscending()) {
+            sortState.setPropertySortOrder(property, SortOrder.DESCENDING);
+        } else {
+            sortState.setSort(null);
+        }
+        invalidateRows();
+    }
+
+    private String writeRows(int from, int count) throws JSONException {
+        List<Row> allRows = getRows();
+        int first = Math.min(Math.max(0, from), allRows.size());
+        int last = first + Math.min(
+                Math.max(0, Math.min(count, MAX_RANGE)), 
+                allRows.size() - first);
+        StringWriter out = new StringWriter();
+        JSONWriter writer = new JSONWriter(out)
+            .object()
+                .key("generation").value(rowsGeneration)
+                .key("total").value(allRows.size())
+                .key("from").value(first);
+        SortParam<JobSortProperty> sort = 
+                tree.getProvider().getSortState().getSort();
+        if (sort != null) {
+            writer.key("sort").object()
+                .key("property").value(sort.getProperty().name())
+                .key("ascending").value(sort.isAscending())
+            .endObject();
+        }
+        writer.key("rows").array();
+        for (Row row : allRows.subList(first, last)) {
+            writeRow(writer, row);
+        }
+        writer.endArray();
+        writer.endObject();
+        return out.toString();
+    }
+    private void writeRow(JSONWriter writer, Row row) throws JSONException {
+        JobStatusTreeNode node = row.node;
+        JobState state = node.getState();
+        int percent = BigDecimal.valueOf(
+                node.getProgress()).movePointRight(2).intValue();
+        writer.object()
+            .key("suite").value(node.getSuiteId())
+            .key("job").value(node.getJobId())
+            .key("depth").value(row.depth)
+            .key("branch").value(row.branch)
+            .key("expanded").value(row.expanded)
+            .key("match").value(tree.getProvider().isSearchMatch(node))
+            .key("state").value(Objects.toString(state, ""))
+            .key("icon").value(JEFFolder.getIconStyleClass(state));
+        if (state != null) {
+            writer.key("status").value(getString("status." + state))
+                .key("bar").value(ProgressColumn.getBarCssClass(
+                        state, percent))
+                .key("percent").value(percent);
+        }
+        writer.key("started").value(DateStartedColumn.getTimeString(
+                    node.getDuration().getStartTime()))
+            .key("duration").value(DurationColumn.getDurationString(node))
+            .key("note").value(StringUtils.defaultString(node.getNote()))
+        .endObject();
+    }
+
+    // A job shown in the tree and where it is shown.
+    private static class Row {
+        private final JobStatusTreeNode node;
+        private final int depth;
+        private final boolean branch;
+        private final boolean expanded;
+        public Row(JobStatusTreeNode node, int depth, 
+                boolean branch, boolean expanded) {
+            super();
+            this.node = node;
+            this.depth = depth;
+            this.branch = branch;
+            this.expanded = expanded;
+        }
+    }
+
+    // Responds with rows in a range, after expanding, collapsing,
+    // or sorting if requested.
+    private class RowsBehavior extends AbstractAjaxBehavior {
+        private static final long serialVersionUID = -3371925064180531398L;
+        @Override
+        public void onRequest() {
+            RequestCycle cycle = RequestCycle.get();
+            IRequestParameters params = 
+                    cycle.getRequest().getRequestParameters();
+            String action = params.getParameterValue("action").toString("");
+            if ("toggle".equals(action) || "sort".equals(action)) {
+                // Changes are stored with the same page id, for the
+                // callback URL the browser has to remain valid.
+                Page page = getPage();
+                boolean frozen = page.setFreezePageId(true);
+                try {
+                    if ("toggle".equals(action)) {
+                        toggle(params.getParameterValue("suite").toString(),
+                                params.getParameterValue("job").toString());
+                    } else {
+                        sort(params.getParameterValue(
+                                "property").toString());
+                    }
+                    page.dirty();
+                } finally {
+                    page.setFreezePageId(frozen);
+                }
+            }
+            String json;
+            try {
+                json = writeRows(
+                        params.getParameterValue("from").toInt(0),
+                        params.getParameterValue("count").toInt(0));
+            } catch (JSONException e) {
+                throw new WicketRuntimeException(
+                        "Cannot create virtual tree rows.", e);
+            }
+            cycle.scheduleRequestHandlerAfterCurrent(new TextRequestHandler(
+                    "application/json", CharEncoding.UTF_8, json));
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+   Copyright 2017 Norconex Inc.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+/*
+/*
+ * Renders a job status tree one window of rows at a time, fetching
+ * rows by range from the server as the tree is scrolled.  Only rows
+ * visible, plus a buffer above and below, are kept in the page.
+ */
+var JEFMonVirtualTree = JEFMonVirtualTree || (function($) {
+
+    // Rows kept above and below those visible.
+    var BUFFER = 30;
+    // Delay after the last scroll event before fetching rows.
+    var SCROLL_DELAY = 50;
+    var INDENT = 18;
+    var trees = {};
+
+    function Tree(cfg) {
+        this.cfg = cfg;
+        this.seq = 0;
+        this.from = 0;
+        this.count = 0;
+        this.total = 0;
+        this.scrollTimer = null;
+    }
+
+    Tree.prototype.element = function() {
+        return $('#' + this.cfg.id);
+    };
+
+    Tree.prototype.bind = function() {
+        var self = this;
+        var el = self.element();
+        el.find('.jef-virtual-viewport').on('scroll', function() {
+            clearTimeout(self.scrollTimer);
+            self.scrollTimer = setTimeout(function() {
+                self.scrollTimer = null;
+                if (!self.covers()) {
+                    self.fetch({});
+                }
+            }, SCROLL_DELAY);
+        });
+        el.on('click', 'a.jef-virtual-junction', function(e) {
+            e.preventDefault();
+            var row = $(this).closest('tr');
+            self.fetch({
+                action: 'toggle',
+                suite: row.attr('data-jef-suite'),
+                job: row.attr('data-jef-job')
+            });
+        });
+        el.on('click', 'th[data-jef-sort] a', function(e) {
+            e.preventDefault();
+            self.fetch({
+                action: 'sort',
+                property: $(this).closest('th').attr('data-jef-sort')
+            });
+        });
+    };
+
+    // Range of rows visible, plus buffer.
+    Tree.prototype.range = function() {
+        var viewport = this.element().find('.jef-virtual-viewport');
+        var first = Math.floor(viewport.scrollTop() / this.cfg.rowHeight);
+        var visible = Math.ceil(viewport.height() / this.cfg.rowHeight) + 1;
+        var from = Math.max(0, first - BUFFER);
+        return {
+            from: from,
+            count: Math.min(first - from + visible + BUFFER, this.cfg.maxRange),
+            first: first,
+            visible: visible
+        };
+    };
+
+    // Whether rows rendered cover those visible.
+    Tree.prototype.covers = function() {
+        var range = this.range();
+        return range.first >= this.from
+                && Math.min(range.first + range.visible, this.total)
+                        <= this.from + this.count;
+    };
+
+    Tree.prototype.fetch = function(params) {
+        var self = this;
+        var range = self.range();
+        var seq = ++self.seq;
+        $.ajax({
+            url: self.cfg.url,
+            data: $.extend({ from: range.from, count: range.count }, params),
+            dataType: 'json',
+            cache: false
+        }).done(function(data) {
+            // Responses to earlier requests are outdated.
+            if (seq === self.seq) {
+                self.render(data);
+            }
+        });
+    };
+
+    Tree.prototype.render = function(data) {
+        var self = this;
+        var el = self.element();
+        var rowHeight = self.cfg.rowHeight;
+        var html = [];
+        self.from = data.from;
+        self.count = data.rows.length;
+        self.total = data.total;
+        $.each(data.rows, function(i, row) {
+            html.push(renderRow(row, data.from + i));
+        });
+        el.find('.jef-virtual-spacer').css('height', data.total * rowHeight);
+        el.find('.jef-virtual-rows')
+                .css('top', data.from * rowHeight)
+                .find('tbody').html(html.join(''));
+        el.find('.jef-virtual-empty').toggle(data.total === 0);
+        el.find('th[data-jef-sort]').each(function() {
+            var th = $(this);
+            var css = 'wicket_orderNone';
+            if (data.sort && data.sort.property === th.attr('data-jef-sort')) {
+                css = data.sort.ascending
+                        ? 'wicket_orderUp' : 'wicket_orderDown';
+            }
+            th.attr('class', css);
+        });
+        // Rows scrolled to while fetching.
+        if (!self.covers()) {
+            self.fetch({});
+        }
+    };
+
+    function renderRow(row, index) {
+        var css = index % 2 === 0 ? 'even' : 'odd';
+        if (row.match) {
+            css += ' jef-tree-match';
+        }
+        var junction = '<span class="tree-junction"></span>';
+        if (row.branch) {
+            junction = '<a href="#" class="jef-virtual-junction '
+                    + (row.expanded ? 'jef-tree-node-expanded'
+                            : 'jef-tree-node-collapsed') + '"></a>';
+        }
+        var progress = '';
+        if (row.state) {
+            progress = '<div class="progress"><div class="progress-bar '
+                    + escape(row.bar || '') + '" role="progressbar"'
+                    + ' aria-valuenow="' + row.percent + '"'
+                    + ' aria-valuemin="0" aria-valuemax="100"'
+                    + ' style="width: ' + row.percent + '%;">'
+                    + '<span>' + row.percent + '%</span></div></div>';
+        }
+        return '<tr class="' + css + '"'
+                + ' data-jef-suite="' + escape(row.suite) + '"'
+                + ' data-jef-job="' + escape(row.job) + '"'
+                + ' data-jef-state="' + escape(row.state) + '">'
+                + '<td class="tree"><div style="padding-left: '
+                + (row.depth * INDENT) + 'px;">' + junction
+                + '<span class="tree-content"><i class="'
+                + escape(row.icon) + '"></i> <span class="tree-label">'
+                + escape(row.job) + '</span></span></div></td>'
+                + '<td class="jef-tree-progress">' + progress + '</td>'
+                + '<td class="jef-tree-status"><div>'
+                + escape(row.status || '') + '</div></td>'
+                + '<td><div>' + escape(row.started) + '</div></td>'
+                + '<td><div>' + escape(row.duration) + '</div></td>'
+                + '<td class="jef-tree-note">' + escape(row.note) + '</td>'
+                + '</tr>';
+    }
+
+    function escape(text) {
+        return String(text).replace(/&/g, '&amp;').replace(/</g, '&lt;')
+                .replace(/>/g, '&gt;').replace(/"/g, '&quot;');
+    }
+
+    return {
+        // Invoked again when the tree is rendered again, in which case
+        // rows are fetched again from the top.
+        init: function(cfg) {
+            var tree = new Tree(cfg);
+            trees[cfg.id] = tree;
+            tree.bind();
+            tree.fetch({});
+        },
+        // Fetches rows shown again, keeping the scroll position.
+        reload: function(id) {
+            var tree = trees[id];
+            if (tree && tree.element().length) {
+                tree.fetch({});
+            }
+        }
+    };
+})(jQuery);
@@ -0,0 +1,127 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instances;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.mutable.MutableInt;
+
+import com.norconex.jef4.status.JobState;
+
+/**
+ * Root job counts of an instance and of the remote instances it 
+ * monitors, directly or through other remote instances.  Instances are
+ * identified by their instance id so each is only counted once.
+ */
+public class InstanceAggregate implements Serializable {
+
+    private static final long serialVersionUID = -6306826683911316113L;
+
+    private final Set<String> instanceIds = new HashSet<>();
+    private int depth;
+    private int totalRoots;
+    private final Map<JobState, MutableInt> statuses = new HashMap<>();
+
+    public InstanceAggregate() {
+        super();
+    }
+
+    /**
+     * Gets the ids of instances counted, when known.
+     * @return instance ids
+     */
+    public Set<String> getInstanceIds() {
+        return instanceIds;
+    }
+
+    /**
+     * Gets how many levels of remote instances are counted. 
+     * Remote instances monitored directly are one level deep.
+     * @return depth
+     */
+    public int getDepth() {
+        return depth;
+    }
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    public int getTotalRoots() {
+        return totalRoots;
+    }
+    public void setTotalRoots(int totalRoots) {
+        this.totalRoots = totalRoots;
+    }
+
+    public Map<JobState, MutableInt> getStatuses() {
+        return statuses;
+    }
+
+    /**
+     * Gets whether any of the given instances is already counted.
+     * @param ids instance ids
+     * @return <code>true</code> if any is counted
+     */
+    public boolean containsAny(Collection<String> ids) {
+        for (String id : ids) {
+            if (instanceIds.contains(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the job counts of an instance itself.
+     * @param instance instance summary
+     * @param level how many levels below this aggregate the instance is
+     */
+    public void add(InstanceSummary instance, int level) {
+        if (instance.getId() != null) {
+            instanceIds.add(instance.getId());
+        }
+        depth = Math.max(depth, level);
+        addCounts(instance.getTotalRoots(), instance.getStatuses());
+    }
+
+    /**
+     * Adds the job counts of another aggregate.
+     * @param aggregate instance aggregate
+     * @param level how many levels below this aggregate the other 
+     *        aggregate instance is
+     */
+    public void add(InstanceAggregate aggregate, int level) {
+        instanceIds.addAll(aggregate.getInstanceIds());
+        depth = Math.max(depth, level + aggregate.getDepth());
+        addCounts(aggregate.getTotalRoots(), aggregate.getStatuses());
+    }
+
+    private void addCounts(int total, Map<JobState, MutableInt> counts) {
+        totalRoots += total;
+        for (Map.Entry<JobState, MutableInt> entry : counts.entrySet()) {
+            MutableInt count = statuses.get(entry.getKey());
+            if (count == null) {
+                count = new MutableInt();
+                statuses.put(entry.getKey(), count);
+            }
+            count.add(entry.getValue());
+        }
+    }
+}
@@ -15,6 +15,7 @@
 package com.norconex.jefmon.instances;
 
 import java.io.Serializable;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -28,10 +29,17 @@ public class InstanceSummary implements Serializable {
     private static final long serialVersionUID = 932346719888464820L;
 
     private final String url;
+    private String id;
     private String name;
     private int totalRoots;
     private final Map<JobState, MutableInt> statuses = new HashMap<>();
     private String remoteError;
+    private String remoteErrorKey;
+    private boolean timedOut;
+    private Date lastUpdated;
+    private RemoteHealth health;
+    private Date nextRetry;
+    private InstanceAggregate aggregate;
 
     public InstanceSummary(String url) {
         super();
@@ -42,6 +50,18 @@ public class InstanceSummary implements Serializable {
         return url;
     }
 
+    /**
+     * Gets the instance id, unless this is an older remote instance 
+     * not having one.
+     * @return instance id or <code>null</code>
+     */
+    public String getId() {
+        return id;
+    }
+    public void setId(String id) {
+        this.id = id;
+    }
+
     public String getName() {
         return name;
     }
@@ -62,15 +82,99 @@ public class InstanceSummary implements Serializable {
         return statuses;
     }
 
+    /**
+     * Gets the job counts of this remote instance including the remote 
+     * instances it monitors, when it monitors any.
+     * @return instance aggregate or <code>null</code>
+     */
+    public InstanceAggregate getAggregate() {
+        return aggregate;
+    }
+    public void setAggregate(InstanceAggregate aggregate) {
+        this.aggregate = aggregate;
+    }
+
+    /**
+     * Gets the non-translated message of an error obtaining this
+     * remote instance.
+     * @return error message or <code>null</code>
+     */
     public String getRemoteError() {
         return remoteError;
     }
     public void setRemoteError(String remoteError) {
         this.remoteError = remoteError;
     }
+    /**
+     * Gets the resource key of the translated message of an error 
+     * obtaining this remote instance, for errors having one.
+     * Summaries are obtained in the background, shared by all users,
+     * so they are only translated when shown.
+     * @return error message resource key or <code>null</code>
+     */
+    public String getRemoteErrorKey() {
+        return remoteErrorKey;
+    }
+    public void setRemoteErrorKey(String remoteErrorKey) {
+        this.remoteErrorKey = remoteErrorKey;
+    }
+
+    /**
+     * Gets whether this remote instance did not respond in time.
+     * @return <code>true</code> if timed out
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+    public void setTimedOut(boolean timedOut) {
+        this.timedOut = timedOut;
+    }
+
+    /**
+     * Gets when this summary was obtained.
+     * @return date obtained or <code>null</code> if not obtained yet
+     */
+    public Date getLastUpdated() {
+        return lastUpdated;
+    }
+    public void setLastUpdated(Date lastUpdated) {
+        this.lastUpdated = lastUpdated;
+    }
+    /**
+     * Gets the health of this remote instance.
+     * @return health or <code>null</code> if not polled yet or if
+     *         this instance
+     */
+    public RemoteHealth getHealth() {
+        return health;
+    }
+    public void setHealth(RemoteHealth health) {
+        this.health = health;
+    }
+
+    /**
+     * Gets when this remote instance will be polled again, when its 
+     * health is {@link RemoteHealth#OPEN}.
+     * @return next retry date or <code>null</code>
+     */
+    public Date getNextRetry() {
+        return nextRetry;
+    }
+    public void setNextRetry(Date nextRetry) {
+        this.nextRetry = nextRetry;
+    }
+
+    /**
+     * Gets whether this remote instance was not obtained yet.
+     * @return <code>true</code> if pending
+     */
+    public boolean isPending() {
+        return lastUpdated == null;
+    }
 
     public boolean isInvalid() {
-        return StringUtils.isNotBlank(remoteError);
+        return StringUtils.isNotBlank(remoteError) 
+                || StringUtils.isNotBlank(remoteErrorKey);
     }
     public boolean isThisInstance() {
         return url == null;
@@ -15,31 +15,17 @@
 package com.norconex.jefmon.instances;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.Serializable;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
+import java.util.Date;
 import java.util.List;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.ArrayUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.mutable.MutableInt;
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.log4j.LogManager;
-import org.apache.log4j.Logger;
 import org.apache.wicket.WicketRuntimeException;
-import org.apache.wicket.ajax.json.JSONException;
-import org.apache.wicket.ajax.json.JSONObject;
 
 import com.norconex.commons.wicket.WicketClass;
-import com.norconex.commons.wicket.resource.loader.StringResourceLoaderUtil;
 import com.norconex.jef4.status.JobState;
 import com.norconex.jef4.status.JobSuiteStatusSnapshot;
 import com.norconex.jefmon.JEFMonApplication;
@@ -51,8 +37,6 @@ public final class InstancesManager extends WicketClass
         implements Serializable {
 
     private static final long serialVersionUID = 830935350229721170L;
-    private static final Logger LOG =
-            LogManager.getLogger(InstancesManager.class);
 
     private InstancesManager() {
         super();
@@ -86,26 +70,17 @@ public final class InstancesManager extends WicketClass
         }
     }
 
+    /**
+     * Gets this instance and the latest summaries of remote instances,
+     * polled in the background.
+     * @return instance summaries, this instance first
+     * @see RemoteInstancesPoller
+     */
     public static List<InstanceSummary> loadInstances() {
-
         List<InstanceSummary> freshInstances = new ArrayList<>();
         freshInstances.add(createThisJefMonInstance());
-
-        JEFMonConfig cfg = JEFMonApplication.get().getConfig();
-        String[] remoteUrls = cfg.getRemoteInstanceUrls();
-        if (remoteUrls == null) {
-            return freshInstances;
-        }
-
-        HttpClient httpclient = HttpClientBuilder.create().build();
-        
-        for (String url : remoteUrls) {
-            InstanceSummary instance = fetchJEFMonInstance(httpclient, url);
-            if (instance != null) {
-                freshInstances.add(instance);
-            }
-        }
-
+        freshInstances.addAll(JEFMonApplication.get()
+                .getRemoteInstancesPoller().getSummaries());
         return freshInstances;
     }
 
@@ -114,9 +89,11 @@ public final class InstancesManager extends WicketClass
         JEFMonInstance suitesStatusesMonitor = 
                 JEFMonApplication.get().getJobSuitesStatusesMonitor();
         InstanceSummary thisInstance = new InstanceSummary(null);
+        thisInstance.setId(config.getInstanceId());
         thisInstance.setName(config.getInstanceName());
+        thisInstance.setLastUpdated(new Date());
         Collection<JobSuiteStatusSnapshot> suitesStatuses = 
-                suitesStatusesMonitor.getJobSuitesStatuses();
+                suitesStatusesMonitor.getSuiteStatuses().getSuites();
         int totalRoot = 0;
         for (JobSuiteStatusSnapshot suiteStatuses : suitesStatuses) {
             JobState status = suiteStatuses.getRoot().getState();
@@ -132,68 +109,55 @@ public final class InstancesManager extends WicketClass
         return thisInstance;
     }
     
-    private static JEFMonConfig getConfig() {
-        return JEFMonApplication.get().getConfig();
+    /**
+     * Aggregates job counts of this instance and of the remote instances
+     * it monitors, from their latest summaries polled in the background.
+     * Remote instances having monitored remote instances contribute 
+     * their own aggregate when not deeper than the maximum depth.
+     * Cycles are broken by never counting an instance twice nor 
+     * counting instances the request came through.
+     * @param path ids of instances the request came through
+     * @param maxDepth how many levels of remote instances to count
+     * @return instance aggregate
+     */
+    public static InstanceAggregate createAggregate(
+            Collection<String> path, int maxDepth) {
+        return createAggregate(createThisJefMonInstance(), 
+                JEFMonApplication.get().getRemoteInstancesPoller()
+                        .getSummaries(), path, maxDepth);
     }
-
-    private static InstanceSummary fetchJEFMonInstance(
-            HttpClient httpClient, final String url) {
-        StringBuilder fullURL = new StringBuilder(url);
-        if (!url.endsWith("/")) {
-            fullURL.append("/");
+    // Package-private for tests.
+    static InstanceAggregate createAggregate(InstanceSummary thisInstance,
+            List<InstanceSummary> remotes, Collection<String> path, 
+            int maxDepth) {
+        InstanceAggregate aggregate = new InstanceAggregate();
+        aggregate.add(thisInstance, 0);
+        if (maxDepth <= 0 || path.contains(thisInstance.getId())) {
+            return aggregate;
         }
-        fullURL.append("/suites/json");
-        InputStream instream = null;
-        InstanceSummary instance = new InstanceSummary(url);
-        try {
-            HttpGet httpget = new HttpGet(fullURL.toString());
-            HttpResponse response = httpClient.execute(httpget);
-            HttpEntity entity = response.getEntity();
-            if (entity != null) {
-                instream = entity.getContent();
-                String content = IOUtils.toString(
-                        instream, StandardCharsets.UTF_8);
-                JSONObject json = new JSONObject(content);
-                
-                instance.setName(json.getString("name"));
-                instance.setTotalRoots(json.getInt("total"));
-                JSONObject jsonStatuses = json.getJSONObject("statuses");
-                @SuppressWarnings("unchecked")
-                Iterator<String> it = jsonStatuses.keys();
-                while (it.hasNext()) {
-                    String key = it.next();
-                    int count = jsonStatuses.getInt(key);
-                    JobState state = null;
-                    if (StringUtils.isNotBlank(key)) {
-                        state = JobState.valueOf(key);
-                    }
-                    instance.getStatuses().put(state, new MutableInt(count));
-                }
-                return instance;
+        for (InstanceSummary remote : remotes) {
+            if (remote.isInvalid()) {
+                continue;
             }
-            ;
-            instance.setRemoteError(StringResourceLoaderUtil.getString(
-                    InstancesManager.class, "error.nocontent"));
-        } catch (JSONException e) {
-            if (LOG.isDebugEnabled()) {
-                LOG.debug("Error with " + instance.getUrl() + " ", e);
+            InstanceAggregate remoteAggregate = remote.getAggregate();
+            if (remoteAggregate != null 
+                    && remoteAggregate.getDepth() < maxDepth
+                    && !remoteAggregate.containsAny(path)
+                    && !remoteAggregate.containsAny(
+                            aggregate.getInstanceIds())) {
+                aggregate.add(remoteAggregate, 1);
+            } else if (remote.getId() == null 
+                    || (!path.contains(remote.getId()) 
+                            && !aggregate.getInstanceIds().contains(
+                                    remote.getId()))) {
+                aggregate.add(remote, 1);
             }
-            instance.setRemoteError(StringResourceLoaderUtil.getString(
-                    InstancesManager.class, "error.badformat"));
-        } catch (Exception e) {
-            instance.setRemoteError("[Non-translated] " + e.getMessage());
-            if (LOG.isDebugEnabled()) {
-                LOG.error("Could not fetch JEF Monitor instance.", e);
-            } else {
-                LOG.error("Could not fetch JEF Monitor instance: "
-                        + e.getMessage());
-            }
-        } finally {
-            IOUtils.closeQuietly(instream);
         }
-        instance.setName(StringResourceLoaderUtil.getString(
-                InstancesManager.class, "error"));
-        return instance;
+        return aggregate;
+    }
+
+    private static JEFMonConfig getConfig() {
+        return JEFMonApplication.get().getConfig();
     }
 
 }
@@ -15,10 +15,14 @@
 package com.norconex.jefmon.instances;
 
 import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
 import java.util.Objects;
 
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.mutable.MutableInt;
+import org.apache.wicket.AttributeModifier;
 import org.apache.wicket.ajax.AbstractAjaxTimerBehavior;
 import org.apache.wicket.ajax.AjaxRequestTarget;
 import org.apache.wicket.ajax.markup.html.AjaxLink;
@@ -31,8 +35,10 @@ import org.apache.wicket.markup.repeater.data.DataView;
 import org.apache.wicket.markup.repeater.data.ListDataProvider;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.ResourceModel;
+import org.apache.wicket.model.StringResourceModel;
 import org.apache.wicket.util.time.Duration;
 
+import com.norconex.commons.lang.time.DurationUtil;
 import com.norconex.commons.wicket.behaviors.CssClass;
 import com.norconex.commons.wicket.behaviors.CssStyle;
 import com.norconex.commons.wicket.behaviors.OnClickBehavior;
@@ -40,6 +46,7 @@ import com.norconex.commons.wicket.bootstrap.modal.BootstrapModalLauncher;
 import com.norconex.commons.wicket.bootstrap.tooltip.BootstrapTooltip;
 import com.norconex.jef4.status.JobState;
 import com.norconex.jefmon.JEFMonPanel;
+import com.norconex.jefmon.instance.JobStatusPushBehavior;
 
 public abstract class InstancesPanel extends JEFMonPanel {
 
@@ -76,14 +83,32 @@ public abstract class InstancesPanel extends JEFMonPanel {
         instancesTable.setOutputMarkupId(true);
         add(instancesTable);
 
-        add(new AbstractAjaxTimerBehavior(Duration.seconds(
-                getJEFMonConfig().getDefaultRefreshInterval())) {
-            private static final long serialVersionUID = -4652378407644216362L;
+        // This instance is updated from pushed job status changes.
+        // Remote instances are polled, only when there are some.
+        int interval = getJEFMonConfig().getDefaultRefreshInterval();
+        add(new JobStatusPushBehavior("summary", interval, true) {
+            private static final long serialVersionUID = 1926183563185839347L;
             @Override
-            protected void onTimer(AjaxRequestTarget target) {
+            protected void onRefresh(AjaxRequestTarget target) {
                 target.add(instancesTable);
             }
         });
+        final AbstractAjaxTimerBehavior remotesTimer = 
+                new AbstractAjaxTimerBehavior(Duration.seconds(interval)) {
+            private static final long serialVersionUID = -4652378407644216362L;
+            @Override
+            protected void onTimer(AjaxRequestTarget target) {
+                if (hasRemoteInstances()) {
+                    target.add(instancesTable);
+                } else {
+                    stop(target);
+                }
+            }
+        };
+        add(remotesTimer);
+        if (!hasRemoteInstances()) {
+            remotesTimer.stop(null);
+        }
         
         AddInstanceDialog dialog = new AddInstanceDialog("addInstanceDialog") {
             private static final long serialVersionUID = 1405966469655005795L;
@@ -91,6 +116,9 @@ public abstract class InstancesPanel extends JEFMonPanel {
             protected void onSubmit(AjaxRequestTarget target, String url) {
                 InstancesManager.addInstance(url);
                 target.add(instancesTable);
+                if (remotesTimer.isStopped()) {
+                    remotesTimer.restart(target);
+                }
             }
         };
         add(dialog);
@@ -100,6 +128,11 @@ public abstract class InstancesPanel extends JEFMonPanel {
         add(addButton);
     }
 
+    private boolean hasRemoteInstances() {
+        return ArrayUtils.isNotEmpty(
+                getJEFMonConfig().getRemoteInstanceUrls());
+    }
+
     private DataView<InstanceSummary> createDataView() {
         ListDataProvider<InstanceSummary> dataProvider =
                 new ListDataProvider<InstanceSummary>(
@@ -110,25 +143,55 @@ public abstract class InstancesPanel extends JEFMonPanel {
             @Override
             public void populateItem(final Item<InstanceSummary> item) {
                 final InstanceSummary instance = item.getModelObject();
-                Label nameLabel = new Label("name", instance.getName());
+                String name = instance.getName();
+                if (name == null && instance.isPending()) {
+                    name = getString("instance.pending");
+                } else if (name == null) {
+                    name = getString("error");
+                }
+                Label nameLabel = new Label("name", name);
                 if (instance.isInvalid()) {
                     nameLabel.add(new CssStyle("font-weight: bold;"));
                 }
                 item.add(nameLabel);
+                // Remote instances monitoring other remote instances
+                // show the job counts of all of them.
+                final InstanceAggregate aggregate = instance.getAggregate();
+                final boolean federated = aggregate != null 
+                        && aggregate.getDepth() > 0 && !instance.isInvalid();
+                Label countLabel = new Label("instanceCount");
+                if (federated) {
+                    countLabel.setDefaultModel(new StringResourceModel(
+                            "instance.count", this, null, new Object[] {
+                                    aggregate.getInstanceIds().size() }));
+                } else {
+                    countLabel.setVisible(false);
+                }
+                item.add(countLabel);
                 String url = instance.getUrl();
                 if (url == null) {
                     url = "<" + getString("instance.this") + ">";
                 }
                 item.add(new Label("url", url));
-                item.add(createJobStateListView(instance));
+                if (federated) {
+                    item.add(createJobStateListView(
+                            instance, aggregate.getStatuses()));
+                } else {
+                    item.add(createJobStateListView(
+                            instance, instance.getStatuses()));
+                }
 
                 String totalLabel;
                 if (instance.isInvalid()) {
                     totalLabel = StringUtils.EMPTY;
+                } else if (federated) {
+                    totalLabel = Integer.toString(aggregate.getTotalRoots());
                 } else {
                     totalLabel = Integer.toString(instance.getTotalRoots());
                 }
                 item.add(new Label("status-total", totalLabel));
+                item.add(createAgeLabel(instance));
+                item.add(createHealthLabel(instance));
 
                 AjaxLink<String> removeButton = new AjaxLink<String>("remove") {
                     private static final long serialVersionUID = 
@@ -153,10 +216,15 @@ public abstract class InstancesPanel extends JEFMonPanel {
                 InstanceSummary instance = model.getObject();
 
                 if (instance.isInvalid()) {
-                    row.add(new CssClass("danger"));
+                    if (instance.isPending() || instance.getHealth() 
+                            == RemoteHealth.DEGRADED) {
+                        row.add(new CssClass("warning"));
+                    } else {
+                        row.add(new CssClass("danger"));
+                    }
                     row.add(new CssStyle("cursor: default;"));
-                    row.add(new BootstrapTooltip(getString(
-                            "instance.error") + instance.getRemoteError()));
+                    row.add(new BootstrapTooltip(getRemoteErrorMessage(
+                            instance)));
                 } else {
                     row.add(new CssStyle("cursor: pointer;"));
                     row.add(new OnClickBehavior() {
@@ -173,6 +241,9 @@ public abstract class InstancesPanel extends JEFMonPanel {
                         row.add(new CssClass("nx-selected-instance text-info"));
                     }
                 }
+                if (instance.isThisInstance()) {
+                    row.add(new AttributeModifier("data-jef-instance", "this"));
+                }
                 return row;
             }
         };
@@ -181,14 +252,74 @@ public abstract class InstancesPanel extends JEFMonPanel {
     protected abstract void onInstanceClick(
             AjaxRequestTarget target, InstanceSummary instance);
 
+    // Remote instance errors are translated when shown.
+    private String getRemoteErrorMessage(InstanceSummary instance) {
+        String message;
+        if (instance.getRemoteErrorKey() != null) {
+            message = getString(instance.getRemoteErrorKey());
+        } else {
+            message = "[Non-translated] " + instance.getRemoteError();
+        }
+        if (instance.isPending()) {
+            return message;
+        }
+        return getString("instance.error") + message;
+    }
+
+    // Shown when remote instance polls fail.
+    private Label createHealthLabel(InstanceSummary instance) {
+        RemoteHealth health = instance.getHealth();
+        if (health == RemoteHealth.DEGRADED) {
+            Label label = new Label("health", getString("health.degraded"));
+            label.add(new CssClass("label label-warning"));
+            return label;
+        }
+        if (health != RemoteHealth.OPEN) {
+            Label label = new Label("health");
+            label.setVisible(false);
+            return label;
+        }
+        long wait = instance.getNextRetry().getTime() 
+                - System.currentTimeMillis();
+        Label label;
+        if (wait < 1000) {
+            label = new Label("health", getString("health.probing"));
+        } else {
+            label = new Label("health", new StringResourceModel(
+                    "health.open", this, null, new Object[] {
+                            DurationUtil.formatShort(getLocale(), wait, 1) }));
+        }
+        label.add(new CssClass("label label-danger"));
+        return label;
+    }
+
+    // How long ago remote instance data was obtained.
+    private Label createAgeLabel(InstanceSummary instance) {
+        if (instance.isThisInstance()) {
+            return new Label("age", getString("instance.live"));
+        }
+        Date lastUpdated = instance.getLastUpdated();
+        if (lastUpdated == null) {
+            return new Label("age");
+        }
+        long age = Math.max(1000, (System.currentTimeMillis() 
+                - lastUpdated.getTime()) / 1000 * 1000);
+        return new Label("age", new StringResourceModel("instance.age", 
+                this, null, new Object[] {
+                        DurationUtil.formatShort(getLocale(), age, 1) }));
+    }
+
     private ListView<JobState> createJobStateListView(
-            final InstanceSummary instance) {
+            final InstanceSummary instance, 
+            final Map<JobState, MutableInt> statuses) {
         return new ListView<JobState>("statuses", Arrays.asList(STATUSES)) {
             private static final long serialVersionUID = -716585245859081922L;
             @Override
             protected void populateItem(ListItem<JobState> item) {
                 JobState status = item.getModelObject();
-                MutableInt count = instance.getStatuses().get(status);
+                item.add(new AttributeModifier(
+                        "data-jef-state", status.toString()));
+                MutableInt count = statuses.get(status);
                 if (count == null) {
                     count = new MutableInt(0);
                 }
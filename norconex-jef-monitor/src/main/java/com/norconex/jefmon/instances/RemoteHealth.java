@@ -0,0 +1,30 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instances;
+
+/**
+ * Health of a remote instance, based on its recent polls.
+ */
+public enum RemoteHealth {
+    /** Last poll succeeded. */
+    HEALTHY,
+    /** Last few polls failed, still polled at the usual interval. */
+    DEGRADED,
+    /** 
+     * Too many polls failed in a row.  Only polled again after a
+     * growing delay, by a single probe poll.
+     */
+    OPEN
+}
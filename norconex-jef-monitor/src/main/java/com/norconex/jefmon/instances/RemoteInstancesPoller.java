@@ -0,0 +1,456 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instances;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.SocketTimeoutException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.CharEncoding;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.lang3.mutable.MutableInt;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.apache.wicket.ajax.json.JSONArray;
+import org.apache.wicket.ajax.json.JSONException;
+import org.apache.wicket.ajax.json.JSONObject;
+
+import com.norconex.jef4.status.JobState;
+import com.norconex.jefmon.JEFMonConfig;
+
+/**
+ * Polls remote instances in the background, keeping the latest summary
+ * obtained from each.  Pages only read those summaries, so remote 
+ * instances are polled at the same rate regardless of how many pages 
+ * show them.
+ * <p>
+ * Each remote instance is polled again at the configured refresh
+ * interval after its last poll completed, on the executor given,
+ * within the configured connect and read timeouts.  Polls taking
+ * longer than the configured remote timeout are aborted and their
+ * remote instance reported as timed out.  Remote instances added to or
+ * removed from the configuration are picked up on the next tick.
+ * <p>
+ * A remote instance failing to be polled is first considered
+ * {@link RemoteHealth#DEGRADED} and is still polled at the refresh 
+ * interval.  After {@value #FAILURES_BEFORE_OPEN} failures in a row, 
+ * it is considered {@link RemoteHealth#OPEN} and is only polled again,
+ * by a single probe poll, after an exponential backoff with jitter
+ * of up to {@value #MAX_BACKOFF} milliseconds, so unreachable remote 
+ * instances cost next to nothing until they are back.  Failures are 
+ * only logged when the health of a remote instance changes.
+ * <p>
+ * Remote instances are asked for the job counts of the remote instances
+ * they monitor themselves, one level less deep than the configured 
+ * federation depth, along with the id of this instance so they never
+ * count it back.
+ * <p>
+ * Poll states are only changed by the poller thread, which checks 
+ * on polls at every tick.
+ */
+@SuppressWarnings("nls")
+public class RemoteInstancesPoller {
+
+    private static final Logger LOG =
+            LogManager.getLogger(RemoteInstancesPoller.class);
+
+    private static final long TICK_INTERVAL = 250;
+    private static final long STOP_TIMEOUT = 5 * 1000;
+    static final int FAILURES_BEFORE_OPEN = 3;
+    static final long MAX_BACKOFF = 10 * 60 * 1000;
+
+    private final JEFMonConfig config;
+    private final HttpClient httpClient;
+    private final ExecutorService executor;
+    private final Map<String, RemotePoll> polls = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    public RemoteInstancesPoller(JEFMonConfig config, 
+            HttpClient httpClient, ExecutorService executor) {
+        super();
+        this.config = config;
+        this.httpClient = httpClient;
+        this.executor = executor;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) {
+            throw new IllegalStateException(
+                    "Remote instances poller already started.");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                new BasicThreadFactory.Builder()
+                        .namingPattern("jefmon-remote-poller-%d")
+                        .daemon(true)
+                        .build());
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    tick(System.currentTimeMillis());
+                } catch (RuntimeException e) {
+                    LOG.error("Could not poll remote instances.", e);
+                }
+            }
+        }, 0, TICK_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        try {
+            if (!scheduler.awaitTermination(
+                    STOP_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                LOG.warn("Remote instances poller did not stop in time.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+        for (RemotePoll poll : polls.values()) {
+            poll.abort();
+        }
+        polls.clear();
+    }
+
+    /**
+     * Gets the latest summary of each configured remote instance, 
+     * in configuration order.  Remote instances not polled yet
+     * have a pending summary.
+     * @return remote instance summaries
+     */
+    public List<InstanceSummary> getSummaries() {
+        List<InstanceSummary> summaries = new ArrayList<>();
+        for (String url : getRemoteUrls()) {
+            RemotePoll poll = polls.get(url);
+            if (poll == null) {
+                summaries.add(createPendingSummary(url));
+            } else {
+                summaries.add(poll.summary);
+            }
+        }
+        return summaries;
+    }
+
+    private Set<String> getRemoteUrls() {
+        Set<String> urls = new LinkedHashSet<>();
+        String[] remoteUrls = config.getRemoteInstanceUrls();
+        if (ArrayUtils.isNotEmpty(remoteUrls)) {
+            for (String url : remoteUrls) {
+                urls.add(url);
+            }
+        }
+        return urls;
+    }
+
+    // Package-private for tests, which give the time.
+    void tick(long now) {
+        Set<String> urls = getRemoteUrls();
+        Iterator<RemotePoll> it = polls.values().iterator();
+        while (it.hasNext()) {
+            RemotePoll poll = it.next();
+            if (!urls.contains(poll.url)) {
+                poll.abort();
+                it.remove();
+            }
+        }
+        for (String url : urls) {
+            RemotePoll poll = polls.get(url);
+            if (poll == null) {
+                poll = new RemotePoll(url);
+                polls.put(url, poll);
+            }
+            if (poll.fetch == null) {
+                if (now >= poll.nextPoll) {
+                    poll.start(now);
+                }
+            } else if (poll.future.isDone()) {
+                poll.complete(now);
+            } else if (now - poll.started > config.getRemoteTimeout()) {
+                poll.timeOut(now);
+            }
+        }
+    }
+
+    // Grows exponentially with failures, with equal jitter so remote
+    // instances that failed together are not all probed together.
+    static long getBackoff(long interval, int attempt) {
+        long base = Math.max(interval, TICK_INTERVAL);
+        long backoff = Math.min(Math.max(base, MAX_BACKOFF), 
+                base << Math.min(attempt + 1, 20));
+        return backoff / 2 
+                + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, CharEncoding.UTF_8);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static InstanceSummary createPendingSummary(String url) {
+        InstanceSummary summary = new InstanceSummary(url);
+        summary.setRemoteErrorKey("error.pending");
+        return summary;
+    }
+
+    // Polling state of a remote instance.
+    private class RemotePoll {
+        private final String url;
+        private volatile InstanceSummary summary;
+        private long nextPoll;
+        private long started;
+        private int failures;
+        private RemoteHealth health;
+        private RemoteFetch fetch;
+        private Future<InstanceSummary> future;
+        public RemotePoll(String url) {
+            super();
+            this.url = url;
+            this.summary = createPendingSummary(url);
+        }
+        private void start(long now) {
+            RequestConfig requestConfig = RequestConfig.custom()
+                    .setConnectionRequestTimeout(
+                            (int) config.getRemoteConnectTimeout())
+                    .setConnectTimeout((int) config.getRemoteConnectTimeout())
+                    .setSocketTimeout((int) config.getRemoteReadTimeout())
+                    .build();
+            String query = "depth=" + (config.getFederationDepth() - 1)
+                    + "&path=" + encode(config.getInstanceId());
+            try {
+                fetch = new RemoteFetch(
+                        httpClient, requestConfig, url, query);
+            } catch (IllegalArgumentException e) {
+                // Invalid URL, failing like unreachable remote instances.
+                done(toErrorSummary(e), now, e);
+                return;
+            }
+            future = executor.submit(fetch);
+            started = now;
+        }
+        private void complete(long now) {
+            InstanceSummary instance;
+            Throwable cause = null;
+            try {
+                instance = future.get();
+                if (instance == null) {
+                    instance = new InstanceSummary(url);
+                    instance.setRemoteErrorKey("error.nocontent");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException ee) {
+                cause = ee.getCause();
+                instance = toErrorSummary(cause);
+            }
+            done(instance, now, cause);
+        }
+        private void timeOut(long now) {
+            abort();
+            InstanceSummary instance = new InstanceSummary(url);
+            instance.setTimedOut(true);
+            instance.setRemoteErrorKey("error.timeout");
+            done(instance, now, null);
+        }
+        private void done(InstanceSummary instance, long now, Throwable cause){
+            long interval = config.getDefaultRefreshInterval() * 1000L;
+            if (!instance.isInvalid()) {
+                if (failures > 0) {
+                    LOG.info("JEF Monitor instance reachable again: " + url);
+                }
+                failures = 0;
+                health = RemoteHealth.HEALTHY;
+                nextPoll = now + interval;
+            } else {
+                failures++;
+                String reason = getFailureReason(instance, cause);
+                if (failures < FAILURES_BEFORE_OPEN) {
+                    if (health != RemoteHealth.DEGRADED) {
+                        LOG.warn("Could not fetch JEF Monitor instance: " 
+                                + url + " (" + reason + ")");
+                    }
+                    health = RemoteHealth.DEGRADED;
+                    nextPoll = now + interval;
+                } else {
+                    long backoff = getBackoff(
+                            interval, failures - FAILURES_BEFORE_OPEN);
+                    if (health != RemoteHealth.OPEN) {
+                        LOG.error("JEF Monitor instance failed " + failures 
+                                + " times in a row: " + url + " (" + reason
+                                + "). Next retry in " + backoff / 1000 
+                                + " seconds.");
+                    }
+                    health = RemoteHealth.OPEN;
+                    nextPoll = now + backoff;
+                    instance.setNextRetry(new Date(nextPoll));
+                }
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Could not fetch JEF Monitor instance " 
+                            + url + " (failure #" + failures + ").", cause);
+                }
+            }
+            instance.setHealth(health);
+            instance.setLastUpdated(new Date(now));
+            summary = instance;
+            fetch = null;
+            future = null;
+        }
+        private void abort() {
+            if (fetch != null) {
+                // Releases its pooled connection.
+                fetch.abort();
+                future.cancel(true);
+            }
+        }
+        private InstanceSummary toErrorSummary(Throwable e) {
+            InstanceSummary instance = new InstanceSummary(url);
+            if (e instanceof SocketTimeoutException) {
+                // Connect (ConnectTimeoutException) or read timeout.
+                instance.setTimedOut(true);
+                instance.setRemoteErrorKey("error.timeout");
+            } else if (e instanceof JSONException) {
+                instance.setRemoteErrorKey("error.badformat");
+            } else {
+                instance.setRemoteError(e.getMessage());
+            }
+            return instance;
+        }
+        private String getFailureReason(
+                InstanceSummary instance, Throwable cause) {
+            if (cause != null && cause.getMessage() != null) {
+                return cause.getMessage();
+            } else if (cause != null) {
+                return cause.getClass().getSimpleName();
+            } else if (instance.isTimedOut()) {
+                return "timed out";
+            }
+            return "no content";
+        }
+    }
+
+    // Fetches a remote instance, or null if it returned no content.
+    private static class RemoteFetch implements Callable<InstanceSummary> {
+        private final HttpClient httpClient;
+        private final HttpGet httpget;
+        private final String url;
+        public RemoteFetch(HttpClient httpClient, 
+                RequestConfig config, String url, String query) {
+            super();
+            this.httpClient = httpClient;
+            this.url = url;
+            StringBuilder fullURL = new StringBuilder(url);
+            if (!url.endsWith("/")) {
+                fullURL.append("/");
+            }
+            fullURL.append("/suites/json?").append(query);
+            httpget = new HttpGet(fullURL.toString());
+            httpget.setConfig(config);
+        }
+        public void abort() {
+            httpget.abort();
+        }
+        @Override
+        public InstanceSummary call() throws IOException, JSONException {
+            InputStream instream = null;
+            InstanceSummary instance = new InstanceSummary(url);
+            try {
+                HttpResponse response = httpClient.execute(httpget);
+                HttpEntity entity = response.getEntity();
+                if (entity == null) {
+                    httpget.releaseConnection();
+                    return null;
+                }
+                instream = entity.getContent();
+                String content = IOUtils.toString(
+                        instream, StandardCharsets.UTF_8);
+                JSONObject json = new JSONObject(content);
+
+                // Older remote instances have no id nor aggregate.
+                instance.setId(json.optString("id", null));
+                instance.setName(json.getString("name"));
+                instance.setTotalRoots(json.getInt("total"));
+                readStatuses(json.getJSONObject("statuses"), 
+                        instance.getStatuses());
+                JSONObject jsonAggregate = json.optJSONObject("aggregate");
+                if (jsonAggregate != null) {
+                    instance.setAggregate(readAggregate(jsonAggregate));
+                }
+                return instance;
+            } finally {
+                IOUtils.closeQuietly(instream);
+            }
+        }
+        private InstanceAggregate readAggregate(JSONObject json) 
+                throws JSONException {
+            InstanceAggregate aggregate = new InstanceAggregate();
+            aggregate.setDepth(json.getInt("depth"));
+            aggregate.setTotalRoots(json.getInt("total"));
+            JSONArray ids = json.getJSONArray("instances");
+            for (int i = 0; i < ids.length(); i++) {
+                aggregate.getInstanceIds().add(ids.getString(i));
+            }
+            readStatuses(json.getJSONObject("statuses"), 
+                    aggregate.getStatuses());
+            return aggregate;
+        }
+        private void readStatuses(JSONObject json, 
+                Map<JobState, MutableInt> statuses) throws JSONException {
+            @SuppressWarnings("unchecked")
+            Iterator<String> it = json.keys();
+            while (it.hasNext()) {
+                String key = it.next();
+                int count = json.getInt(key);
+                JobState state = null;
+                if (StringUtils.isNotBlank(key)) {
+                    state = JobState.valueOf(key);
+                }
+                statuses.put(state, new MutableInt(count));
+            }
+        }
+    }
+}
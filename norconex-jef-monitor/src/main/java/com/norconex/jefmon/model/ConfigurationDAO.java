@@ -18,8 +18,12 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
@@ -29,6 +33,7 @@ import org.apache.commons.configuration.HierarchicalConfiguration;
 import org.apache.commons.configuration.XMLConfiguration;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 
@@ -66,6 +71,18 @@ public final class ConfigurationDAO {
             XMLConfiguration xml = new XMLConfiguration(CONFIG_FILE);
             xml.setDelimiterParsingDisabled(true);
             config.setInstanceName(xml.getString("instance-name", "[?]"));
+            String instanceId = xml.getString("instance-id", null);
+            if (StringUtils.isNotBlank(instanceId)) {
+                config.setInstanceId(instanceId);
+            } else {
+                // Not saved here (loading must not write the file), so
+                // derived to stay the same on every restart.
+                config.setInstanceId(getDefaultInstanceId());
+                LOG.info("JEF Monitor configuration has no instance id. "
+                        + "Using id \"" + config.getInstanceId() 
+                        + "\" derived from host and configuration "
+                        + "directory.");
+            }
             
             LOG.debug("Loading remote instances...");
             config.setRemoteInstanceUrls(loadRemoteUrls(xml));
@@ -73,6 +90,34 @@ public final class ConfigurationDAO {
             config.setMonitoredPaths(loadMonitoredPaths(xml));
             LOG.debug("Loading default refresh interval...");
             config.setDefaultRefreshInterval(loadDefaultRefreshInterval(xml));
+            LOG.debug("Loading scan threads...");
+            config.setScanThreads(xml.getInt(
+                    "scan-threads", JEFMonConfig.DEFAULT_SCAN_THREADS));
+            LOG.debug("Loading scan intervals...");
+            config.setHotScanInterval(xml.getLong("hot-scan-interval",
+                    JEFMonConfig.DEFAULT_HOT_SCAN_INTERVAL));
+            config.setColdScanInterval(xml.getLong("cold-scan-interval",
+                    JEFMonConfig.DEFAULT_COLD_SCAN_INTERVAL));
+            config.setScanTimeout(xml.getLong("scan-timeout",
+                    JEFMonConfig.DEFAULT_SCAN_TIMEOUT));
+            LOG.debug("Loading scan depth and patterns...");
+            config.setScanDepth(xml.getInt(
+                    "scan-depth", JEFMonConfig.DEFAULT_SCAN_DEPTH));
+            config.setScanIncludes(
+                    loadPatterns(xml, "scan-includes.pattern"));
+            config.setScanExcludes(
+                    loadPatterns(xml, "scan-excludes.pattern"));
+            LOG.debug("Loading remote instance timeouts...");
+            config.setRemoteConnectTimeout(xml.getLong(
+                    "remote-connect-timeout", 
+                    JEFMonConfig.DEFAULT_REMOTE_CONNECT_TIMEOUT));
+            config.setRemoteReadTimeout(xml.getLong(
+                    "remote-read-timeout", 
+                    JEFMonConfig.DEFAULT_REMOTE_READ_TIMEOUT));
+            config.setRemoteTimeout(xml.getLong(
+                    "remote-timeout", JEFMonConfig.DEFAULT_REMOTE_TIMEOUT));
+            config.setFederationDepth(xml.getInt("federation-depth",
+                    JEFMonConfig.DEFAULT_FEDERATION_DEPTH));
             LOG.debug("Loading job actions...");
             config.setJobActions(loadJobActions(xml));
             LOG.info("JEF Monitor configuration file loaded.");
@@ -83,6 +128,26 @@ public final class ConfigurationDAO {
         return config;
     }
 
+    // Same for a given host and configuration directory.
+    private static String getDefaultInstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            LOG.debug("Cannot resolve host name for instance id.", e);
+            host = "localhost";
+        }
+        String configDir;
+        try {
+            configDir = CONFIG_FILE.getParentFile().getCanonicalPath();
+        } catch (IOException e) {
+            LOG.debug("Cannot resolve configuration directory for "
+                    + "instance id.", e);
+            configDir = CONFIG_FILE.getParentFile().getAbsolutePath();
+        }
+        return UUID.nameUUIDFromBytes((host + "|" + configDir).getBytes(
+                StandardCharsets.UTF_8)).toString();
+    }
 
     public static void saveConfig(JEFMonConfig config) throws IOException {
         if (LOG.isDebugEnabled()) {
@@ -110,11 +175,83 @@ public final class ConfigurationDAO {
             xml.writeCharacters(config.getInstanceName());
             xml.writeEndElement();
 
+            xml.writeStartElement("instance-id");
+            xml.writeCharacters(config.getInstanceId());
+            xml.writeEndElement();
+
             xml.writeStartElement("default-refresh-interval");
             xml.writeCharacters(
                     Integer.toString(config.getDefaultRefreshInterval()));
             xml.writeEndElement();
 
+            // Not written unless set, so it follows the machine it runs on.
+            if (config.getScanThreads() > 0) {
+                xml.writeStartElement("scan-threads");
+                xml.writeCharacters(
+                        Integer.toString(config.getScanThreads()));
+                xml.writeEndElement();
+            }
+
+            // Defaults are not written, so they can change with releases.
+            if (config.getHotScanInterval() 
+                    != JEFMonConfig.DEFAULT_HOT_SCAN_INTERVAL) {
+                xml.writeStartElement("hot-scan-interval");
+                xml.writeCharacters(
+                        Long.toString(config.getHotScanInterval()));
+                xml.writeEndElement();
+            }
+            if (config.getColdScanInterval() 
+                    != JEFMonConfig.DEFAULT_COLD_SCAN_INTERVAL) {
+                xml.writeStartElement("cold-scan-interval");
+                xml.writeCharacters(
+                        Long.toString(config.getColdScanInterval()));
+                xml.writeEndElement();
+            }
+
+            if (config.getScanTimeout() 
+                    != JEFMonConfig.DEFAULT_SCAN_TIMEOUT) {
+                xml.writeStartElement("scan-timeout");
+                xml.writeCharacters(Long.toString(config.getScanTimeout()));
+                xml.writeEndElement();
+            }
+
+            if (config.getScanDepth() != JEFMonConfig.DEFAULT_SCAN_DEPTH) {
+                xml.writeStartElement("scan-depth");
+                xml.writeCharacters(Integer.toString(config.getScanDepth()));
+                xml.writeEndElement();
+            }
+            savePatterns(xml, "scan-includes", config.getScanIncludes());
+            savePatterns(xml, "scan-excludes", config.getScanExcludes());
+
+            if (config.getRemoteConnectTimeout()
+                    != JEFMonConfig.DEFAULT_REMOTE_CONNECT_TIMEOUT) {
+                xml.writeStartElement("remote-connect-timeout");
+                xml.writeCharacters(
+                        Long.toString(config.getRemoteConnectTimeout()));
+                xml.writeEndElement();
+            }
+            if (config.getRemoteReadTimeout()
+                    != JEFMonConfig.DEFAULT_REMOTE_READ_TIMEOUT) {
+                xml.writeStartElement("remote-read-timeout");
+                xml.writeCharacters(
+                        Long.toString(config.getRemoteReadTimeout()));
+                xml.writeEndElement();
+            }
+            if (config.getRemoteTimeout() 
+                    != JEFMonConfig.DEFAULT_REMOTE_TIMEOUT) {
+                xml.writeStartElement("remote-timeout");
+                xml.writeCharacters(Long.toString(config.getRemoteTimeout()));
+                xml.writeEndElement();
+            }
+
+            if (config.getFederationDepth() 
+                    != JEFMonConfig.DEFAULT_FEDERATION_DEPTH) {
+                xml.writeStartElement("federation-depth");
+                xml.writeCharacters(
+                        Integer.toString(config.getFederationDepth()));
+                xml.writeEndElement();
+            }
+
             saveRemoteUrls(xml, config.getRemoteInstanceUrls());
             saveMonitoredPaths(xml, config.getMonitoredPaths());
             saveJobActions(xml, config.getJobActions());
@@ -208,6 +345,28 @@ public final class ConfigurationDAO {
         return urls.toArray(ArrayUtils.EMPTY_STRING_ARRAY);
     }
 
+    private static void savePatterns(XMLStreamWriter xml, 
+            String tagName, String[] patterns) throws XMLStreamException {
+        if (ArrayUtils.isEmpty(patterns)) {
+            return;
+        }
+        xml.writeStartElement(tagName);
+        for (String pattern : patterns) {
+            xml.writeStartElement("pattern");
+            xml.writeCharacters(pattern);
+            xml.writeEndElement();
+        }
+        xml.writeEndElement();
+    }
+    private static String[] loadPatterns(XMLConfiguration xml, String key) {
+        List<HierarchicalConfiguration> nodes = xml.configurationsAt(key);
+        List<String> patterns = new ArrayList<String>();
+        for (HierarchicalConfiguration node : nodes) {
+            patterns.add(node.getString(""));
+        }
+        return patterns.toArray(ArrayUtils.EMPTY_STRING_ARRAY);
+    }
+
     private static int loadDefaultRefreshInterval(XMLConfiguration xml) {
         return xml.getInt("default-refresh-interval", //$NON-NLS-1$
                 JEFMonConfig.DEFAULT_REFRESH_INTERVAL);
@@ -44,6 +44,7 @@ import org.eclipse.jetty.server.SslConnectionFactory;
 import org.eclipse.jetty.server.handler.ErrorHandler;
 import org.eclipse.jetty.server.handler.HandlerList;
 import org.eclipse.jetty.servlet.FilterHolder;
+import org.eclipse.jetty.servlet.ServletHolder;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.eclipse.jetty.webapp.WebAppContext;
 
@@ -51,6 +52,8 @@ import com.norconex.commons.lang.map.Properties;
 import com.norconex.jefmon.JEFMonApplication;
 import com.norconex.jefmon.JEFMonException;
 import com.norconex.jefmon.model.ConfigurationDAO;
+import com.norconex.jefmon.ws.JobStatusSocketServlet;
+import com.norconex.jefmon.ws.SuiteStatusEventServlet;
 
 @SuppressWarnings("nls")
 public class JEFMonServer {
@@ -129,11 +132,26 @@ public class JEFMonServer {
         FilterHolder filterHolder = new FilterHolder(filter);
         filterHolder.setInitParameter(
                 WicketFilter.FILTER_MAPPING_PARAM, JEFMON_MAPPING);
+        // Leave job status push requests to their servlets
+        filterHolder.setInitParameter(WicketFilter.IGNORE_PATHS_PARAM,
+                JobStatusSocketServlet.MAPPING.substring(1) + ","
+                        + SuiteStatusEventServlet.MAPPING.substring(1));
+        // Event streams are asynchronous, through this filter
+        filterHolder.setAsyncSupported(true);
         webappContext.addFilter(
                 filterHolder, 
                 JEFMON_MAPPING, 
                 EnumSet.of(DispatcherType.REQUEST));
         
+        // Add job status push
+        webappContext.addServlet(new ServletHolder(new JobStatusSocketServlet(
+                app.getJobSuitesStatusesMonitor())), 
+                JobStatusSocketServlet.MAPPING);
+        ServletHolder eventsHolder = new ServletHolder(
+                new SuiteStatusEventServlet(app.getJobSuitesStatusesMonitor()));
+        eventsHolder.setAsyncSupported(true);
+        webappContext.addServlet(eventsHolder, SuiteStatusEventServlet.MAPPING);
+        
         // Add custom error message
         webappContext.setErrorHandler(new ErrorHandler() {
             protected void writeErrorPageBody(
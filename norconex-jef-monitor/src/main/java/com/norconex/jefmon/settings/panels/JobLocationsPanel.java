@@ -18,21 +18,40 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringEscapeUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.wicket.AttributeModifier;
 import org.apache.wicket.ajax.AjaxRequestTarget;
 import org.apache.wicket.ajax.form.AjaxFormComponentUpdatingBehavior;
+import org.apache.wicket.behavior.AttributeAppender;
 import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.markup.html.basic.Label;
 import org.apache.wicket.markup.html.form.ListMultipleChoice;
+import org.apache.wicket.markup.html.form.NumberTextField;
+import org.apache.wicket.markup.html.form.TextArea;
+import org.apache.wicket.markup.html.list.ListItem;
+import org.apache.wicket.markup.html.list.ListView;
+import org.apache.wicket.model.AbstractReadOnlyModel;
+import org.apache.wicket.model.IModel;
+import org.apache.wicket.model.LoadableDetachableModel;
 import org.apache.wicket.model.Model;
+import org.apache.wicket.model.PropertyModel;
 import org.apache.wicket.model.util.ListModel;
 import org.apache.wicket.util.string.AppendingStringBuffer;
+import org.joda.time.format.DateTimeFormat;
 
 import com.norconex.commons.wicket.behaviors.OnClickBehavior;
 import com.norconex.commons.wicket.markup.html.form.UpdatingTextField;
 import com.norconex.jefmon.JEFMonConfig;
+import com.norconex.jefmon.JEFMonSession;
+import com.norconex.jefmon.instance.ScanLaneStatus;
+import com.norconex.jefmon.instance.ScanLaneStatus.Health;
+import com.norconex.jefmon.instance.ScanTelemetry;
 
 /**
  * Panel for giving a name to a JEF installation.
@@ -48,6 +67,9 @@ public class JobLocationsPanel extends AbstractSettingsPanel {
     private final List<File> locations = new ArrayList<>();
     private final ListMultipleChoice<File> locationsSelect;
     private final WebMarkupContainer removeButton;
+    private final IModel<Integer> scanDepth;
+    private final IModel<String> scanIncludes;
+    private final IModel<String> scanExcludes;
     
     public JobLocationsPanel(String id, JEFMonConfig dirtyConfig) {
         super(id, dirtyConfig);
@@ -96,12 +118,47 @@ public class JobLocationsPanel extends AbstractSettingsPanel {
         });
         removeButton.setVisible(false);
         formWrapper.add(removeButton);
+
+        // --- Sub-directories ---
+        scanDepth = Model.of(dirtyConfig.getScanDepth());
+        NumberTextField<Integer> depthField = 
+                new NumberTextField<>("scanDepth", scanDepth, Integer.class);
+        depthField.setRequired(true);
+        depthField.setMinimum(0);
+        formWrapper.add(depthField);
+        scanIncludes = Model.of(toLines(dirtyConfig.getScanIncludes()));
+        formWrapper.add(new TextArea<>("scanIncludes", scanIncludes));
+        scanExcludes = Model.of(toLines(dirtyConfig.getScanExcludes()));
+        formWrapper.add(new TextArea<>("scanExcludes", scanExcludes));
+
+        // --- Monitoring status of saved locations ---
+        add(buildLaneStatuses("laneStatuses"));
     }
 
     @Override
     protected void applyState() {
         JEFMonConfig dirtyConfig = getDirtyConfig();
         dirtyConfig.setMonitoredPaths(locations.toArray(new File[]{}));
+        dirtyConfig.setScanDepth(scanDepth.getObject());
+        dirtyConfig.setScanIncludes(fromLines(scanIncludes.getObject()));
+        dirtyConfig.setScanExcludes(fromLines(scanExcludes.getObject()));
+    }
+
+    private String toLines(String[] values) {
+        if (values == null) {
+            return null;
+        }
+        return StringUtils.join(values, '\n');
+    }
+    private String[] fromLines(String lines) {
+        List<String> values = new ArrayList<>();
+        for (String line : StringUtils.split(
+                StringUtils.defaultString(lines), "\r\n")) {
+            if (StringUtils.isNotBlank(line)) {
+                values.add(line.trim());
+            }
+        }
+        return values.toArray(ArrayUtils.EMPTY_STRING_ARRAY);
     }
 
     private void addFileToSelect(AjaxRequestTarget target, File... files) {
@@ -159,6 +216,134 @@ public class JobLocationsPanel extends AbstractSettingsPanel {
         return lc;
     }
     
+    private WebMarkupContainer buildLaneStatuses(String markupId) {
+        IModel<List<ScanLaneStatus>> model = 
+                new LoadableDetachableModel<List<ScanLaneStatus>>() {
+            private static final long serialVersionUID = -3209618557414934337L;
+            @Override
+            protected List<ScanLaneStatus> load() {
+                return getJobSuitesStatusesMonitor().getScanLaneStatuses();
+            }
+        };
+        WebMarkupContainer wrapper = new WebMarkupContainer(markupId);
+        wrapper.add(new ListView<ScanLaneStatus>("lanes", model) {
+            private static final long serialVersionUID = 5253802376302955137L;
+            @Override
+            protected void populateItem(ListItem<ScanLaneStatus> item) {
+                ScanLaneStatus status = item.getModelObject();
+                item.add(new Label("path", status.getPath().getPath()));
+                Label health = new Label("health", 
+                        getString("location." + status.getHealth()));
+                health.add(new AttributeAppender("class", 
+                        getHealthCssClass(status.getHealth()), " "));
+                if (status.getError() != null) {
+                    health.add(new AttributeModifier(
+                            "title", status.getError()));
+                }
+                item.add(health);
+                item.add(new Label("lastscan", 
+                        getTimeString(status.getLastScanDate())));
+                item.add(new Label("duration", 
+                        Long.toString(status.getLastScanDuration())));
+                item.add(new Label("suites", 
+                        Integer.toString(status.getSuites())));
+            }
+        });
+        addTelemetry(wrapper);
+        return wrapper;
+    }
+
+    private void addTelemetry(WebMarkupContainer wrapper) {
+        final IModel<ScanTelemetry> model = 
+                new LoadableDetachableModel<ScanTelemetry>() {
+            private static final long serialVersionUID = 4870145622318720434L;
+            @Override
+            protected ScanTelemetry load() {
+                return getJobSuitesStatusesMonitor().getScanTelemetry();
+            }
+        };
+        wrapper.add(new Label("scans", 
+                new PropertyModel<Long>(model, "scans")));
+        wrapper.add(new Label("filesSeen", 
+                new PropertyModel<Long>(model, "filesSeen")));
+        wrapper.add(new Label("filesParsed", 
+                new PropertyModel<Long>(model, "filesParsed")));
+        wrapper.add(new Label("errors", 
+                new PropertyModel<Long>(model, "errors")));
+        wrapper.add(new Label("lastSuccess", 
+                new AbstractReadOnlyModel<String>() {
+            private static final long serialVersionUID = 2196417434839402473L;
+            @Override
+            public String getObject() {
+                ScanTelemetry telemetry = model.getObject();
+                if (telemetry.getLastSuccessDate() == null) {
+                    return "-";
+                }
+                return telemetry.getLastSuccessfulGeneration() + " ("
+                        + getTimeString(telemetry.getLastSuccessDate()) + ")";
+            }
+        }));
+
+        // Scan duration histogram
+        List<Integer> buckets = new ArrayList<>();
+        for (int i = 0; i <= ScanTelemetry.DURATION_BUCKETS.length; i++) {
+            buckets.add(i);
+        }
+        wrapper.add(new ListView<Integer>("buckets", buckets) {
+            private static final long serialVersionUID = 6741870926573466131L;
+            @Override
+            protected void populateItem(ListItem<Integer> item) {
+                int bucket = item.getModelObject();
+                long[] bounds = ScanTelemetry.DURATION_BUCKETS;
+                String label;
+                if (bucket < bounds.length) {
+                    label = "\u2264 " + bounds[bucket];
+                } else {
+                    label = "> " + bounds[bounds.length - 1];
+                }
+                item.add(new Label("bucket", label));
+            }
+        });
+        wrapper.add(new ListView<Integer>("counts", buckets) {
+            private static final long serialVersionUID = -1851244734021542329L;
+            @Override
+            protected void populateItem(ListItem<Integer> item) {
+                final int bucket = item.getModelObject();
+                item.add(new Label("count", 
+                        new AbstractReadOnlyModel<Long>() {
+                    private static final long serialVersionUID = 
+                            -5496271335418127694L;
+                    @Override
+                    public Long getObject() {
+                        return model.getObject().getDurationCounts()[bucket];
+                    }
+                }));
+            }
+        });
+    }
+
+    private String getHealthCssClass(Health health) {
+        switch (health) {
+        case HEALTHY:
+            return "label-success";
+        case DEGRADED:
+            return "label-warning";
+        case FAILED:
+            return "label-danger";
+        default:
+            return "label-default";
+        }
+    }
+
+    private String getTimeString(Date date) {
+        if (date == null) {
+            return StringUtils.EMPTY;
+        }
+        Locale locale = JEFMonSession.getSession().getLocale();
+        return DateTimeFormat.forPattern("yyyy-MMM-dd - H:mm:ss")
+                .withLocale(locale).print(date.getTime()); 
+    }
+
     private void adjustButtonVisibility(AjaxRequestTarget target) {
         Collection<File> files = locationsSelect.getModelObject();
         removeButton.setVisible(files != null && !files.isEmpty());
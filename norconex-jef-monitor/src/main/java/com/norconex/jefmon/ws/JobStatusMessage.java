@@ -0,0 +1,107 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.ws;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.lang3.mutable.MutableInt;
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.ajax.json.JSONException;
+import org.apache.wicket.ajax.json.JSONWriter;
+
+import com.norconex.jef4.status.JobState;
+import com.norconex.jef4.status.JobSuiteStatusSnapshot;
+import com.norconex.jefmon.instance.JobStatusChange;
+import com.norconex.jefmon.instance.SuiteStatuses;
+
+/**
+ * Creates the JSON job status messages pushed to clients, on a single
+ * line:
+ * <pre>
+ * {"generation": 12, "total": 3, "statuses": {"RUNNING": 1, ...},
+ *  "jobs": [{"change": "UPDATED", "suite": "...", "job": "...",
+ *            "state": "RUNNING", "progress": 0.5, "note": "..."}]}
+ * </pre>
+ * "total" and "statuses" summarize root suite states, like 
+ * {@link JobSuiteProgressJsonPage}.
+ */
+@SuppressWarnings("nls")
+final class JobStatusMessage {
+
+    private JobStatusMessage() {
+        super();
+    }
+
+    /**
+     * Creates a job status message.
+     * @param statuses suite statuses the message is for
+     * @param changes job changes, or <code>null</code> for a message 
+     *        without "jobs"
+     * @return JSON message
+     */
+    static String toJSON(
+            SuiteStatuses statuses, List<JobStatusChange> changes) {
+        Map<String, MutableInt> states = new TreeMap<>();
+        for (JobSuiteStatusSnapshot suite : statuses.getSuites()) {
+            String state = toString(suite.getRoot().getState());
+            MutableInt count = states.get(state);
+            if (count == null) {
+                count = new MutableInt();
+                states.put(state, count);
+            }
+            count.increment();
+        }
+        StringWriter out = new StringWriter();
+        try {
+            JSONWriter writer = new JSONWriter(out)
+                .object()
+                    .key("generation").value(statuses.getGeneration())
+                    .key("total").value(statuses.size())
+                    .key("statuses").object();
+            for (Map.Entry<String, MutableInt> entry : states.entrySet()) {
+                writer.key(entry.getKey()).value(entry.getValue().intValue());
+            }
+            writer.endObject();
+            if (changes != null) {
+                writer.key("jobs").array();
+                for (JobStatusChange change : changes) {
+                    writer.object()
+                        .key("change").value(change.getType().toString())
+                        .key("suite").value(change.getSuiteId())
+                        .key("job").value(change.getJobId())
+                        .key("state").value(toString(change.getState()))
+                        .key("progress").value(change.getProgress())
+                        .key("note").value(change.getNote())
+                    .endObject();
+                }
+                writer.endArray();
+            }
+            writer.endObject();
+        } catch (JSONException e) {
+            throw new WicketRuntimeException(
+                    "Cannot create JSON job status message.", e);
+        }
+        return out.toString();
+    }
+    private static String toString(JobState state) {
+        if (state == null) {
+            return "";
+        }
+        return state.toString();
+    }
+}
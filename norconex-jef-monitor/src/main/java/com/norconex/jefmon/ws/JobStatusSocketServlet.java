@@ -0,0 +1,150 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.ws;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.ServletException;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WebSocketAdapter;
+import org.eclipse.jetty.websocket.servlet.ServletUpgradeRequest;
+import org.eclipse.jetty.websocket.servlet.ServletUpgradeResponse;
+import org.eclipse.jetty.websocket.servlet.WebSocketCreator;
+import org.eclipse.jetty.websocket.servlet.WebSocketServlet;
+import org.eclipse.jetty.websocket.servlet.WebSocketServletFactory;
+
+import com.norconex.jefmon.instance.ISuiteStatusesListener;
+import com.norconex.jefmon.instance.JEFMonInstance;
+import com.norconex.jefmon.instance.JobStatusChange;
+import com.norconex.jefmon.instance.SuiteStatuses;
+
+/**
+ * Pushes job status changes to connected browsers over WebSocket, as 
+ * each new generation of suite statuses is published.  The same 
+ * {@link JobStatusMessage} is sent to every client.  Upon connecting, 
+ * clients receive a message without "jobs" holding the current 
+ * generation, to find out whether they missed changes.  Generations 
+ * without job changes are not sent.
+ */
+@SuppressWarnings("nls")
+public class JobStatusSocketServlet extends WebSocketServlet
+        implements ISuiteStatusesListener {
+
+    private static final long serialVersionUID = 2193316593046381517L;
+
+    private static final Logger LOG =
+            LogManager.getLogger(JobStatusSocketServlet.class);
+
+    public static final String MAPPING = "/ws/jobs";
+
+    // Nothing is sent while job statuses do not change, which can last
+    // for hours, and there are no keep-alive messages.  A short timeout
+    // would close healthy connections of quiet instances, with clients
+    // polling until they reconnect.  Connections are still closed after
+    // an hour of silence to release those of clients gone without
+    // closing them.  Live clients then simply reconnect.
+    private static final long IDLE_TIMEOUT = 60 * 60 * 1000;
+
+    private final JEFMonInstance instance;
+    private final transient Set<Session> sessions = Collections.newSetFromMap(
+            new ConcurrentHashMap<Session, Boolean>());
+
+    public JobStatusSocketServlet(JEFMonInstance instance) {
+        super();
+        this.instance = instance;
+    }
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        instance.addSuiteStatusesListener(this);
+    }
+
+    @Override
+    public void destroy() {
+        instance.removeSuiteStatusesListener(this);
+        for (Session session : sessions) {
+            session.close();
+        }
+        sessions.clear();
+        super.destroy();
+    }
+
+    @Override
+    public void configure(WebSocketServletFactory factory) {
+        factory.getPolicy().setIdleTimeout(IDLE_TIMEOUT);
+        factory.setCreator(new WebSocketCreator() {
+            @Override
+            public Object createWebSocket(ServletUpgradeRequest request,
+                    ServletUpgradeResponse response) {
+                return new JobStatusSocket();
+            }
+        });
+    }
+
+    @Override
+    public void suiteStatusesPublished(
+            SuiteStatuses previous, SuiteStatuses current) {
+        if (sessions.isEmpty()) {
+            return;
+        }
+        List<JobStatusChange> changes = 
+                JobStatusChange.between(previous, current);
+        if (changes.isEmpty()) {
+            return;
+        }
+        String message = JobStatusMessage.toJSON(current, changes);
+        for (Session session : sessions) {
+            send(session, message);
+        }
+    }
+
+    // Messages are queued by Jetty and sent asynchronously, so a slow
+    // client does not hold back the monitor or other clients.
+    private void send(Session session, String message) {
+        if (session.isOpen()) {
+            session.getRemote().sendStringByFuture(message);
+        }
+    }
+
+    private class JobStatusSocket extends WebSocketAdapter {
+        @Override
+        public void onWebSocketConnect(Session session) {
+            super.onWebSocketConnect(session);
+            // Added before reading current statuses, so no generation
+            // published in between is missed.
+            sessions.add(session);
+            send(session, JobStatusMessage.toJSON(
+                    instance.getSuiteStatuses(), null));
+        }
+        @Override
+        public void onWebSocketClose(int statusCode, String reason) {
+            sessions.remove(getSession());
+            super.onWebSocketClose(statusCode, reason);
+        }
+        @Override
+        public void onWebSocketError(Throwable cause) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Job status socket error.", cause);
+            }
+        }
+    }
+}
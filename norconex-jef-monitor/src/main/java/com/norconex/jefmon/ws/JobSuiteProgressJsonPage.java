@@ -16,7 +16,10 @@ package com.norconex.jefmon.ws;
 
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.util.Map;
+import java.util.Set;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.mutable.MutableInt;
 import org.apache.wicket.WicketRuntimeException;
 import org.apache.wicket.ajax.json.JSONException;
@@ -24,15 +27,43 @@ import org.apache.wicket.ajax.json.JSONWriter;
 import org.apache.wicket.markup.MarkupType;
 import org.apache.wicket.markup.html.WebPage;
 import org.apache.wicket.model.IModel;
+import org.apache.wicket.request.IRequestParameters;
 import org.apache.wicket.request.Response;
 import org.apache.wicket.request.mapper.parameter.PageParameters;
 
 import com.norconex.jef4.status.JobState;
+import com.norconex.jefmon.JEFMonApplication;
 import com.norconex.jefmon.JEFMonConfig;
 import com.norconex.jefmon.JEFMonSession;
+import com.norconex.jefmon.instances.InstanceAggregate;
 import com.norconex.jefmon.instances.InstancesManager;
 import com.norconex.jefmon.instances.InstanceSummary;
 
+/**
+ * Root job counts of this instance:
+ * <pre>
+ * {"id": "...", "name": "...", "total": 3, "statuses": {"COMPLETED": 3}}
+ * </pre>
+ * Remote instances polling this one can also get the counts of the 
+ * remote instances this one monitors, with these parameters:
+ * <ul>
+ *   <li><code>depth</code>: how many levels of remote instances to 
+ *       count, up to the configured federation depth.  Defaults to 0,
+ *       counting only this instance.</li>
+ *   <li><code>path</code>: ids of instances the request came through,
+ *       comma-separated or repeated.  Those are never counted, breaking 
+ *       cycles.</li>
+ * </ul>
+ * When the depth is greater than 0, the response also has:
+ * <pre>
+ * "aggregate": {"depth": 2, "instances": ["...", ...], "total": 12,
+ *     "statuses": {...}},
+ * "remotes": [{"url": "...", "id": "...", "name": "...", "total": 3,
+ *     "statuses": {...}, "instances": 4}, {"url": "...", "error": "..."}]
+ * </pre>
+ * Counts of remote instances are the latest polled in the background,
+ * so responses never wait on remote instances.
+ */
 @SuppressWarnings("nls")
 public class JobSuiteProgressJsonPage extends WebPage {
 
@@ -66,23 +97,39 @@ public class JobSuiteProgressJsonPage extends WebPage {
             OutputStreamWriter out =
                     new OutputStreamWriter(response.getOutputStream());
 
+            IRequestParameters params = 
+                    getRequest().getQueryParameters();
+            int depth = Math.min(params.getParameterValue("depth")
+                    .toInt(0), monitorConfig.getFederationDepth());
+            Set<String> path = RequestParams.getValues(params, "path");
+
             InstanceSummary instance = 
                     InstancesManager.createThisJefMonInstance();
-            JSONWriter writer = new JSONWriter(out)
-                .object()
-                    .key("name").value(instance.getName())
-                    .key("total").value(instance.getTotalRoots())
-                    .key("statuses").object();
-            for (JobState status : instance.getStatuses().keySet()) {
-                MutableInt value = instance.getStatuses().get(status);
-                if (status == null) {
-                    writer.key("").value(value);
-                } else {
-                    writer.key(status.toString()).value(value);
+            JSONWriter writer = new JSONWriter(out).object();
+            writeSummary(writer, instance);
+            if (depth > 0) {
+                writeAggregate(writer, 
+                        InstancesManager.createAggregate(path, depth));
+                writer.key("remotes").array();
+                for (InstanceSummary remote : JEFMonApplication.get()
+                        .getRemoteInstancesPoller().getSummaries()) {
+                    writer.object().key("url").value(remote.getUrl());
+                    if (remote.isInvalid()) {
+                        writer.key("error").value(StringUtils.defaultString(
+                                remote.getRemoteErrorKey(), 
+                                remote.getRemoteError()));
+                    } else {
+                        writeSummary(writer, remote);
+                        if (remote.getAggregate() != null) {
+                            writer.key("instances").value(remote
+                                    .getAggregate().getInstanceIds().size());
+                        }
+                    }
+                    writer.endObject();
                 }
+                writer.endArray();
             }
             writer.endObject();
-            writer.endObject();
             out.flush();
         } catch (IOException e) {
             throw new WicketRuntimeException("Cannot flush JSON response.", e);
@@ -91,4 +138,41 @@ public class JobSuiteProgressJsonPage extends WebPage {
         }
     }
 
+    private void writeSummary(JSONWriter writer, InstanceSummary instance)
+            throws JSONException {
+        writer.key("id").value(instance.getId())
+              .key("name").value(instance.getName())
+              .key("total").value(instance.getTotalRoots());
+        writeStatuses(writer, instance.getStatuses());
+    }
+
+    private void writeAggregate(
+            JSONWriter writer, InstanceAggregate aggregate)
+                    throws JSONException {
+        writer.key("aggregate").object()
+              .key("depth").value(aggregate.getDepth())
+              .key("instances").array();
+        for (String id : aggregate.getInstanceIds()) {
+            writer.value(id);
+        }
+        writer.endArray()
+              .key("total").value(aggregate.getTotalRoots());
+        writeStatuses(writer, aggregate.getStatuses());
+        writer.endObject();
+    }
+
+    private void writeStatuses(JSONWriter writer, 
+            Map<JobState, MutableInt> statuses) throws JSONException {
+        writer.key("statuses").object();
+        for (JobState status : statuses.keySet()) {
+            MutableInt value = statuses.get(status);
+            if (status == null) {
+                writer.key("").value(value);
+            } else {
+                writer.key(status.toString()).value(value);
+            }
+        }
+        writer.endObject();
+    }
+
 }
@@ -0,0 +1,264 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.ws;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.CharEncoding;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.ajax.json.JSONException;
+import org.apache.wicket.ajax.json.JSONWriter;
+import org.apache.wicket.markup.MarkupType;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.request.IRequestParameters;
+import org.apache.wicket.request.http.WebRequest;
+import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+
+import com.norconex.jef4.status.IJobStatus;
+import com.norconex.jef4.status.JobState;
+import com.norconex.jefmon.JEFMonApplication;
+import com.norconex.jefmon.instance.SuiteJobIndex;
+import com.norconex.jefmon.instance.SuiteStatuses;
+
+/**
+ * Job statuses of all suites, as a tree of jobs:
+ * <pre>
+ * {"generation": 12, "suites": [
+ *   {"id": "suite", "state": "RUNNING", "progress": 0.5, 
+ *    "start": 1500000000000, "end": null, "lastActivity": 1500000000000,
+ *    "note": "...", "resumeAttempts": 0, "jobs": [...]}]}
+ * </pre>
+ * Dates are in milliseconds since epoch.  Supported parameters, each 
+ * accepting comma-separated or repeated values:
+ * <ul>
+ *   <li><code>fields</code>: job fields to include, among the above.
+ *       Job ids and children ("jobs") are always included.</li>
+ *   <li><code>suite</code>: ids of suites to include.</li>
+ *   <li><code>state</code>: include only suites in those states.</li>
+ * </ul>
+ * Responses have a strong ETag made of the suite statuses generation and
+ * a digest of the parameters.  Requests with a matching <code>If-None-Match</code>
+ * header get a 304 status without statuses being read.
+ */
+@SuppressWarnings("nls")
+public class JobTreeJsonPage extends WebPage {
+
+    private static final long serialVersionUID = -2373003633719563170L;
+
+    public static final String FIELD_ID = "id";
+    public static final String FIELD_STATE = "state";
+    public static final String FIELD_PROGRESS = "progress";
+    public static final String FIELD_START = "start";
+    public static final String FIELD_END = "end";
+    public static final String FIELD_LAST_ACTIVITY = "lastActivity";
+    public static final String FIELD_NOTE = "note";
+    public static final String FIELD_RESUME_ATTEMPTS = "resumeAttempts";
+    private static final List<String> FIELDS = Collections.unmodifiableList(
+            Arrays.asList(FIELD_ID, FIELD_STATE, FIELD_PROGRESS, FIELD_START,
+                    FIELD_END, FIELD_LAST_ACTIVITY, FIELD_NOTE,
+                    FIELD_RESUME_ATTEMPTS));
+
+    public JobTreeJsonPage() {
+    }
+
+    public JobTreeJsonPage(PageParameters pageParameters) {
+        super(pageParameters);
+    }
+
+    @Override
+    public MarkupType getMarkupType() {
+        return new MarkupType("json", "application/json");
+    }
+
+    @Override
+    public void renderPage() {
+        WebRequest request = (WebRequest) getRequest();
+        WebResponse response = (WebResponse) getResponse();
+        IRequestParameters params = request.getQueryParameters();
+        Set<String> fields = RequestParams.getValues(params, "fields");
+        Set<String> suiteIds = RequestParams.getValues(params, "suite");
+        Set<String> stateNames = RequestParams.getValues(params, "state");
+        if (fields.isEmpty()) {
+            fields.addAll(FIELDS);
+        } else if (!FIELDS.containsAll(fields)) {
+            fields.removeAll(FIELDS);
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, 
+                    "Unsupported fields: " + fields);
+            return;
+        }
+        fields.add(FIELD_ID);
+        Set<JobState> states = new TreeSet<>();
+        for (String stateName : stateNames) {
+            try {
+                states.add(JobState.valueOf(stateName));
+            } catch (IllegalArgumentException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, 
+                        "Unsupported state: " + stateName);
+                return;
+            }
+        }
+
+        SuiteStatuses statuses = ((JEFMonApplication) getApplication())
+                .getJobSuitesStatusesMonitor().getSuiteStatuses();
+        String etag = getETag(statuses, fields, suiteIds, states);
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", "no-cache");
+        if (matches(request.getHeader("If-None-Match"), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType("application/json; charset=UTF-8");
+        try {
+            Writer out = new OutputStreamWriter(
+                    response.getOutputStream(), CharEncoding.UTF_8);
+            JSONWriter writer = new JSONWriter(out)
+                .object()
+                    .key("generation").value(statuses.getGeneration())
+                    .key("suites").array();
+            for (String suiteId : statuses.getSuiteIds()) {
+                if (!suiteIds.isEmpty() && !suiteIds.contains(suiteId)) {
+                    continue;
+                }
+                SuiteJobIndex index = statuses.getJobIndex(suiteId);
+                if (!states.isEmpty() && !states.contains(
+                        index.getJobStatus(suiteId).getState())) {
+                    continue;
+                }
+                writeJob(writer, index, suiteId, fields);
+            }
+            writer.endArray();
+            writer.endObject();
+            out.flush();
+        } catch (IOException e) {
+            throw new WicketRuntimeException("Cannot flush JSON response.", e);
+        } catch (JSONException e) {
+            throw new WicketRuntimeException("Cannot create JSON response.", e);
+        }
+    }
+
+    private void writeJob(JSONWriter writer, SuiteJobIndex index,
+            String jobId, Set<String> fields) throws JSONException {
+        IJobStatus status = index.getJobStatus(jobId);
+        writer.object();
+        writer.key(FIELD_ID).value(jobId);
+        if (fields.contains(FIELD_STATE)) {
+            writer.key(FIELD_STATE).value(
+                    Objects.toString(status.getState(), null));
+        }
+        if (fields.contains(FIELD_PROGRESS)) {
+            writer.key(FIELD_PROGRESS).value(status.getProgress());
+        }
+        if (fields.contains(FIELD_START)) {
+            writer.key(FIELD_START).value(
+                    toMillis(status.getDuration().getStartTime()));
+        }
+        if (fields.contains(FIELD_END)) {
+            writer.key(FIELD_END).value(
+                    toMillis(status.getDuration().getEndTime()));
+        }
+        if (fields.contains(FIELD_LAST_ACTIVITY)) {
+            writer.key(FIELD_LAST_ACTIVITY).value(
+                    toMillis(status.getLastActivity()));
+        }
+        if (fields.contains(FIELD_NOTE)) {
+            writer.key(FIELD_NOTE).value(status.getNote());
+        }
+        if (fields.contains(FIELD_RESUME_ATTEMPTS)) {
+            writer.key(FIELD_RESUME_ATTEMPTS).value(
+                    status.getResumeAttempts());
+        }
+        List<String> childIds = index.getChildIds(jobId);
+        if (!childIds.isEmpty()) {
+            writer.key("jobs").array();
+            for (String childId : childIds) {
+                writeJob(writer, index, childId, fields);
+            }
+            writer.endArray();
+        }
+        writer.endObject();
+    }
+
+    private Long toMillis(Date date) {
+        if (date == null) {
+            return null;
+        }
+        return date.getTime();
+    }
+
+    // Generation dates tell apart generations of different runs.
+    // Parameters are digested once normalized, with values sorted and
+    // prefixed with their length so different parameters never make 
+    // the same string.
+    private String getETag(SuiteStatuses statuses, Set<String> fields, 
+            Set<String> suiteIds, Set<JobState> states) {
+        long date = 0;
+        if (statuses.getDate() != null) {
+            date = statuses.getDate().getTime();
+        }
+        StringBuilder variant = new StringBuilder();
+        appendVariant(variant, fields);
+        appendVariant(variant, suiteIds);
+        appendVariant(variant, states);
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1").digest(
+                    variant.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new WicketRuntimeException("Cannot create ETag.", e);
+        }
+        return "\"" + statuses.getGeneration() + "-" 
+                + Long.toString(date, Character.MAX_RADIX) + "-"
+                + new BigInteger(1, digest).toString(Character.MAX_RADIX)
+                + "\"";
+    }
+    private void appendVariant(StringBuilder variant, Set<?> values) {
+        variant.append(values.size()).append(';');
+        for (Object value : values) {
+            String str = value.toString();
+            variant.append(str.length()).append(':').append(str);
+        }
+    }
+
+    private boolean matches(String ifNoneMatch, String etag) {
+        if (StringUtils.isBlank(ifNoneMatch)) {
+            return false;
+        }
+        for (String tag : StringUtils.split(ifNoneMatch, ',')) {
+            tag = StringUtils.removeStart(tag.trim(), "W/");
+            if ("*".equals(tag) || etag.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
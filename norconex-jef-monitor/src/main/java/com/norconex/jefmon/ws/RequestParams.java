@@ -0,0 +1,57 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.ws;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.wicket.request.IRequestParameters;
+import org.apache.wicket.util.string.StringValue;
+
+/**
+ * Reads request parameters of web service pages.
+ */
+final class RequestParams {
+
+    private RequestParams() {
+        super();
+    }
+
+    /**
+     * Gets the values of a parameter, split on commas.  A parameter can
+     * be repeated.  Values are trimmed and blank ones ignored.
+     * @param params request parameters
+     * @param name parameter name
+     * @return sorted distinct values (never <code>null</code>)
+     */
+    static Set<String> getValues(IRequestParameters params, String name) {
+        Set<String> values = new TreeSet<>();
+        List<StringValue> paramValues = params.getParameterValues(name);
+        if (paramValues == null) {
+            return values;
+        }
+        for (StringValue paramValue : paramValues) {
+            for (String value : StringUtils.split(
+                    paramValue.toString(""), ',')) {
+                if (StringUtils.isNotBlank(value)) {
+                    values.add(value.trim());
+                }
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,345 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.ws;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.CharEncoding;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import com.norconex.jefmon.instance.ISuiteStatusesListener;
+import com.norconex.jefmon.instance.JEFMonInstance;
+import com.norconex.jefmon.instance.JobStatusChange;
+import com.norconex.jefmon.instance.SuiteStatuses;
+
+/**
+ * Streams job status changes as Server-Sent Events, for tools to follow
+ * them over one long-lived connection instead of polling 
+ * {@link JobSuiteProgressJsonPage}.  Each event data is a single-line
+ * {@link JobStatusMessage} and its id is made of the suite statuses 
+ * generation, prefixed with an identifier of this stream for ids from 
+ * before a restart not to be mistaken for current ones:
+ * <ul>
+ *   <li><code>snapshot</code>: all jobs, as added, sent first when 
+ *       changes since the last event id received cannot be resumed.</li>
+ *   <li><code>change</code>: jobs added, removed, or whose state, 
+ *       progress, or note changed in a generation.</li>
+ * </ul>
+ * Clients reconnecting with a <code>Last-Event-ID</code> header (or 
+ * <code>lastEventId</code> parameter) get the events they missed, from a
+ * history of the last {@value #HISTORY_SIZE} change events.  A comment
+ * is sent every {@value #KEEP_ALIVE_INTERVAL} milliseconds to keep 
+ * connections open and detect closed ones.  Clients not reading
+ * events fast enough are disconnected.
+ */
+@SuppressWarnings("nls")
+public class SuiteStatusEventServlet extends HttpServlet
+        implements ISuiteStatusesListener {
+
+    private static final long serialVersionUID = -4521187853306735311L;
+
+    private static final Logger LOG =
+            LogManager.getLogger(SuiteStatusEventServlet.class);
+
+    public static final String MAPPING = "/suites/events";
+
+    public static final int HISTORY_SIZE = 200;
+    public static final long KEEP_ALIVE_INTERVAL = 30 * 1000;
+    // Events waiting to be written to a client before it is dropped.
+    private static final int MAX_PENDING = 1000;
+    private static final long RETRY_DELAY = 5 * 1000;
+
+    private final JEFMonInstance instance;
+    private String streamId;
+    // Change events by increasing generation (guarded by "this").
+    private final transient Deque<Event> history = new ArrayDeque<>();
+    // Generation from which history holds all change events.
+    private long historyStart;
+    // Suite statuses of the last change event (guarded by "this").
+    private transient SuiteStatuses lastPublished = SuiteStatuses.EMPTY;
+    private final transient Set<EventClient> clients = 
+            Collections.newSetFromMap(
+                    new ConcurrentHashMap<EventClient, Boolean>());
+    private transient ExecutorService writers;
+    private transient ScheduledExecutorService keepAlive;
+
+    public SuiteStatusEventServlet(JEFMonInstance instance) {
+        super();
+        this.instance = instance;
+    }
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        streamId = Long.toString(System.currentTimeMillis(), 36);
+        writers = Executors.newCachedThreadPool(
+                new BasicThreadFactory.Builder()
+                        .namingPattern("jefmon-events-%d")
+                        .daemon(true)
+                        .build());
+        keepAlive = Executors.newSingleThreadScheduledExecutor(
+                new BasicThreadFactory.Builder()
+                        .namingPattern("jefmon-events-keepalive-%d")
+                        .daemon(true)
+                        .build());
+        keepAlive.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                for (EventClient client : clients) {
+                    client.send(": keep-alive\n\n");
+                }
+            }
+        }, KEEP_ALIVE_INTERVAL, KEEP_ALIVE_INTERVAL, TimeUnit.MILLISECONDS);
+        synchronized (this) {
+            lastPublished = instance.getSuiteStatuses();
+            historyStart = lastPublished.getGeneration();
+            instance.addSuiteStatusesListener(this);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        instance.removeSuiteStatusesListener(this);
+        keepAlive.shutdownNow();
+        for (EventClient client : clients) {
+            client.close();
+        }
+        writers.shutdownNow();
+        super.destroy();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        resp.setContentType("text/event-stream");
+        resp.setCharacterEncoding(CharEncoding.UTF_8);
+        resp.setHeader("Cache-Control", "no-cache");
+        resp.flushBuffer();
+
+        AsyncContext context = req.startAsync();
+        context.setTimeout(0);
+        EventClient client = new EventClient(context);
+        context.addListener(client);
+
+        String lastEventId = req.getHeader("Last-Event-ID");
+        if (StringUtils.isBlank(lastEventId)) {
+            lastEventId = req.getParameter("lastEventId");
+        }
+
+        client.send("retry: " + RETRY_DELAY + "\n\n");
+        // Registered with events to resume under the same lock as new
+        // events are added, so none is missed or sent twice.
+        synchronized (this) {
+            clients.add(client);
+            for (String text : getResumeEvents(lastEventId)) {
+                client.send(text);
+            }
+        }
+    }
+
+    /**
+     * Gets the events a client connecting with the given last event id
+     * must receive first: the change events it missed if all are still 
+     * in history, or else a snapshot.  Both are as of the last 
+     * generation published to clients, which may be behind the 
+     * instance one while its listeners are being notified.
+     * @param lastEventId last event id received, or <code>null</code>
+     * @return event texts
+     */
+    synchronized List<String> getResumeEvents(String lastEventId) {
+        long lastGeneration = toGeneration(lastEventId);
+        List<String> events = new ArrayList<>();
+        if (lastGeneration >= historyStart 
+                && lastGeneration <= lastPublished.getGeneration()) {
+            for (Event event : history) {
+                if (event.generation > lastGeneration) {
+                    events.add(event.text);
+                }
+            }
+        } else {
+            events.add(toEvent(lastPublished.getGeneration(), "snapshot",
+                    JobStatusMessage.toJSON(lastPublished, 
+                            JobStatusChange.between(
+                                    SuiteStatuses.EMPTY, lastPublished))));
+        }
+        return events;
+    }
+
+    @Override
+    public synchronized void suiteStatusesPublished(
+            SuiteStatuses previous, SuiteStatuses current) {
+        // Generations already in a snapshot are skipped, and changes are
+        // from the last one published in case any was not notified.
+        if (current.getGeneration() <= lastPublished.getGeneration()) {
+            return;
+        }
+        List<JobStatusChange> changes = 
+                JobStatusChange.between(lastPublished, current);
+        lastPublished = current;
+        if (changes.isEmpty()) {
+            return;
+        }
+        Event event = new Event(current.getGeneration(), 
+                toEvent(current.getGeneration(), "change",
+                        JobStatusMessage.toJSON(current, changes)));
+        history.addLast(event);
+        if (history.size() > HISTORY_SIZE) {
+            historyStart = history.removeFirst().generation;
+        }
+        for (EventClient client : clients) {
+            client.send(event.text);
+        }
+    }
+
+    private String toEvent(long generation, String type, String data) {
+        return "id: " + streamId + "-" + generation 
+                + "\nevent: " + type + "\ndata: " + data + "\n\n";
+    }
+    // -1 if not an event id of this stream
+    private long toGeneration(String eventId) {
+        if (!StringUtils.startsWith(eventId, streamId + "-")) {
+            return -1;
+        }
+        return NumberUtils.toLong(
+                StringUtils.substringAfter(eventId, "-"), -1);
+    }
+
+    private static class Event {
+        private final long generation;
+        private final String text;
+        public Event(long generation, String text) {
+            super();
+            this.generation = generation;
+            this.text = text;
+        }
+    }
+
+    // Events are queued and written on writer threads, so a slow client
+    // does not hold back the monitor or other clients.
+    private class EventClient implements Runnable, AsyncListener {
+        private final AsyncContext context;
+        private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean writing = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        public EventClient(AsyncContext context) {
+            super();
+            this.context = context;
+        }
+        private void send(String text) {
+            if (closed.get()) {
+                return;
+            }
+            if (pendingCount.incrementAndGet() > MAX_PENDING) {
+                LOG.warn("Event stream client too slow, disconnecting: "
+                        + context.getRequest().getRemoteAddr());
+                close();
+                return;
+            }
+            pending.add(text);
+            write();
+        }
+        private void write() {
+            if (!pending.isEmpty() && writing.compareAndSet(false, true)) {
+                try {
+                    writers.execute(this);
+                } catch (RuntimeException e) {
+                    // rejected once stopped
+                    writing.set(false);
+                    close();
+                }
+            }
+        }
+        @Override
+        public void run() {
+            try {
+                PrintWriter out = context.getResponse().getWriter();
+                String text;
+                while ((text = pending.poll()) != null) {
+                    pendingCount.decrementAndGet();
+                    out.write(text);
+                }
+                out.flush();
+                if (out.checkError()) {
+                    close();
+                }
+            } catch (IOException | RuntimeException e) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Could not write to event stream client.", e);
+                }
+                close();
+            } finally {
+                writing.set(false);
+            }
+            // Events added after the last poll are written next.
+            write();
+        }
+        private void close() {
+            if (closed.compareAndSet(false, true)) {
+                clients.remove(this);
+                pending.clear();
+                try {
+                    context.complete();
+                } catch (IllegalStateException e) {
+                    // already completed
+                }
+            }
+        }
+        @Override
+        public void onComplete(AsyncEvent event) {
+            close();
+        }
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            close();
+        }
+        @Override
+        public void onError(AsyncEvent event) {
+            close();
+        }
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // not restarted
+        }
+    }
+}
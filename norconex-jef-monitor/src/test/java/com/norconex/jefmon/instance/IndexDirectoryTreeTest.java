@@ -0,0 +1,141 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IndexDirectoryTreeTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File root;
+    private IndexDirectoryTree tree;
+
+    @Before
+    public void setUp() throws IOException {
+        root = folder.getRoot();
+        createIndex("a.index");
+        createIndex("status/nested.index");
+        createIndex("prod/crawler/b.index");
+        createIndex("prod/crawler/status/nested.index");
+        createIndex("test/c.index");
+        createIndex("prod/deep/er/d.index");
+        tree = new IndexDirectoryTree(root);
+    }
+
+    @Test
+    public void testDepth() {
+        Map<File, Set<File>> dirs = walk(0, null, null);
+        assertEquals(1, dirs.size());
+        assertTrue(dirs.get(root).contains(new File(root, "a.index")));
+
+        dirs = walk(2, null, null);
+        assertEquals(3, dirs.size());
+        assertTrue(dirs.containsKey(dir("prod/crawler")));
+        assertTrue(dirs.containsKey(dir("test")));
+
+        assertEquals(4, walk(3, null, null).size());
+    }
+
+    @Test
+    public void testStatusDirIsSkipped() {
+        Map<File, Set<File>> dirs = walk(5, null, null);
+        assertFalse(dirs.containsKey(dir("status")));
+        assertFalse(dirs.containsKey(dir("prod/crawler/status")));
+    }
+
+    @Test
+    public void testIncludes() {
+        // relative path
+        Map<File, Set<File>> dirs = walk(5, new String[] { "prod/*" }, null);
+        assertEquals(Collections.singleton(dir("prod/crawler")),
+                dirs.keySet());
+        // directory name
+        dirs = walk(5, new String[] { "er", " ", "test" }, null);
+        assertEquals(2, dirs.size());
+        assertTrue(dirs.containsKey(dir("prod/deep/er")));
+        assertTrue(dirs.containsKey(dir("test")));
+    }
+
+    @Test
+    public void testExcludes() {
+        // excluded directories are not walked
+        Map<File, Set<File>> dirs = walk(5, null, new String[] { "prod" });
+        assertEquals(2, dirs.size());
+        assertTrue(dirs.containsKey(root));
+        assertTrue(dirs.containsKey(dir("test")));
+
+        dirs = walk(5, null, new String[] { "prod/deep" });
+        assertEquals(3, dirs.size());
+        assertFalse(dirs.containsKey(dir("prod/deep/er")));
+    }
+
+    @Test
+    public void testUnchangedDirsAreNotListedAgain() throws IOException {
+        walk(5, null, null);
+        int walked = tree.getLastWalkedCount();
+        assertEquals(walked, tree.getLastListedCount());
+
+        walk(5, null, null);
+        assertEquals(walked, tree.getLastWalkedCount());
+        assertEquals(0, tree.getLastListedCount());
+
+        walk(5, null, null, Collections.singleton(dir("test")), false);
+        assertEquals(1, tree.getLastListedCount());
+
+        walk(5, null, null, null, true);
+        assertEquals(walked, tree.getLastListedCount());
+
+        File e = createIndex("test/e.index");
+        File test = dir("test");
+        assertTrue(test.setLastModified(test.lastModified() + 5000));
+        Map<File, Set<File>> dirs = walk(5, null, null);
+        assertEquals(1, tree.getLastListedCount());
+        assertTrue(dirs.get(test).contains(e));
+    }
+
+    private Map<File, Set<File>> walk(
+            int maxDepth, String[] includes, String[] excludes) {
+        return walk(maxDepth, includes, excludes, null, false);
+    }
+    private Map<File, Set<File>> walk(int maxDepth, String[] includes,
+            String[] excludes, Set<File> staleDirs, boolean full) {
+        return tree.walk(maxDepth, includes, excludes, staleDirs, full);
+    }
+
+    private File dir(String path) {
+        return new File(root, path);
+    }
+    private File createIndex(String path) throws IOException {
+        File file = new File(root, path);
+        file.getParentFile().mkdirs();
+        assertTrue(file.createNewFile());
+        return file;
+    }
+}
@@ -0,0 +1,62 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IndexFileWatcherTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File statusDir;
+
+    @Before
+    public void setUp() throws IOException {
+        statusDir = folder.newFolder(IndexFileWatcher.STATUS_DIR);
+    }
+
+    @Test
+    public void testToIndexFilePlainSuite() throws IOException {
+        File index = folder.newFile("suite.index");
+        assertEquals(index, IndexFileWatcher.toIndexFile(
+                new File(statusDir, "suite__job.job")));
+    }
+
+    @Test
+    public void testToIndexFileEscapedSuite() throws IOException {
+        File index = folder.newFile("my__suite.index");
+        assertEquals(index, IndexFileWatcher.toIndexFile(
+                new File(statusDir, "my__suite__job.job")));
+    }
+
+    @Test
+    public void testToIndexFileMissingIndex() throws IOException {
+        folder.newFile("other.index");
+        assertNull(IndexFileWatcher.toIndexFile(
+                new File(statusDir, "suite__job.job")));
+        assertNull(IndexFileWatcher.toIndexFile(
+                new File(statusDir, "suite.job")));
+    }
+}
@@ -0,0 +1,139 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.norconex.jef4.job.IJob;
+import com.norconex.jef4.job.group.SyncJobGroup;
+import com.norconex.jef4.status.IJobStatus;
+import com.norconex.jef4.status.JobDuration;
+import com.norconex.jef4.status.JobState;
+import com.norconex.jef4.status.JobStatusUpdater;
+import com.norconex.jef4.status.JobSuiteStatusSnapshot;
+import com.norconex.jef4.status.MutableJobStatus;
+import com.norconex.jef4.suite.JobSuite;
+
+public class JobSearchIndexTest {
+
+    private JobSearchIndex index;
+
+    @Before
+    public void setUp() {
+        JobSuiteStatusSnapshot crawlA = JobSuiteStatusSnapshot.create(
+                new SyncJobGroup("crawlA", 
+                        new TestJob("Fetch-Docs"), new TestJob("import")),
+                null);
+        JobSuiteStatusSnapshot crawlB = JobSuiteStatusSnapshot.create(
+                new SyncJobGroup("crawlB", new TestJob("fetch-images"), 
+                        new TestJob("commit-FETCH"), new TestJob("import")),
+                null);
+        complete((MutableJobStatus) crawlA.getJobStatus("Fetch-Docs"));
+        Map<File, JobSuiteStatusSnapshot> snapshots = new HashMap<>();
+        snapshots.put(new File("crawlA.index"), crawlA);
+        snapshots.put(new File("crawlB.index"), crawlB);
+        index = new SuiteStatuses(1, new Date(), snapshots, null)
+                .getSearchIndex();
+    }
+
+    @Test
+    public void testContains() {
+        JobSearchResult result = index.search(" FETCH ", null);
+        assertEquals(3, result.getMatchCount());
+        assertTrue(result.isMatch("crawlA", "Fetch-Docs"));
+        assertTrue(result.isMatch("crawlB", "fetch-images"));
+        assertTrue(result.isMatch("crawlB", "commit-FETCH"));
+        assertTrue(result.isAncestor("crawlA", "crawlA"));
+        assertEquals(Arrays.asList("crawlA", "crawlB"), result.getSuiteIds());
+    }
+
+    @Test
+    public void testPrefix() {
+        JobSearchResult result = index.search("^fetch", null);
+        assertEquals(2, result.getMatchCount());
+        assertTrue(result.isMatch("crawlA", "Fetch-Docs"));
+        assertTrue(result.isMatch("crawlB", "fetch-images"));
+        assertFalse(result.isMatch("crawlB", "commit-FETCH"));
+
+        // Same job id in different suites.
+        result = index.search("^import", null);
+        assertEquals(2, result.getMatchCount());
+        assertEquals(Arrays.asList("crawlA", "crawlB"), result.getSuiteIds());
+
+        assertEquals(2, index.search("^CRAWL", null).getMatchCount());
+        assertEquals(1, index.search("^crawlb", null).getMatchCount());
+        assertEquals(0, index.search("^a", null).getMatchCount());
+        assertEquals(0, index.search("^zzz", null).getMatchCount());
+        assertEquals(0, index.search("^ocs", null).getMatchCount());
+        // Marker only matches all.
+        assertEquals(7, index.search("^", null).getMatchCount());
+    }
+
+    @Test
+    public void testState() {
+        assertEquals(7, index.search(null, null).getMatchCount());
+        JobSearchResult result = index.search(" ", JobState.COMPLETED);
+        assertEquals(1, result.getMatchCount());
+        assertTrue(result.isMatch("crawlA", "Fetch-Docs"));
+        assertEquals(1, index.search("docs", JobState.COMPLETED)
+                .getMatchCount());
+        assertEquals(0, index.search("import", JobState.COMPLETED)
+                .getMatchCount());
+        result = index.search("^fetch", JobState.UNKNOWN);
+        assertEquals(1, result.getMatchCount());
+        assertTrue(result.isMatch("crawlB", "fetch-images"));
+        assertEquals(0, index.search(null, JobState.RUNNING).getMatchCount());
+    }
+
+    private void complete(MutableJobStatus status) {
+        JobDuration duration = new JobDuration();
+        duration.setStartTime(new Date(1000));
+        duration.setEndTime(new Date(2000));
+        status.setDuration(duration);
+        status.setLastActivity(new Date(2000));
+        status.setProgress(1);
+    }
+
+    private static class TestJob implements IJob {
+        private final String id;
+        public TestJob(String id) {
+            super();
+            this.id = id;
+        }
+        @Override
+        public String getId() {
+            return id;
+        }
+        @Override
+        public void execute(JobStatusUpdater updater, JobSuite suite) {
+            // never executed
+        }
+        @Override
+        public void stop(IJobStatus status, JobSuite suite) {
+            // never executed
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.norconex.jef4.job.IJob;
+import com.norconex.jef4.job.group.SyncJobGroup;
+import com.norconex.jef4.status.IJobStatus;
+import com.norconex.jef4.status.JobStatusUpdater;
+import com.norconex.jef4.status.JobSuiteStatusSnapshot;
+import com.norconex.jef4.status.MutableJobStatus;
+import com.norconex.jef4.suite.JobSuite;
+import com.norconex.jefmon.instance.JobStatusChange.Type;
+
+public class JobStatusChangeTest {
+
+    @Test
+    public void testAddedSuite() {
+        SuiteStatuses current = statuses(1, snapshot("s1", "a", "b"));
+        List<String> changes = toStrings(
+                JobStatusChange.between(SuiteStatuses.EMPTY, current));
+        assertEquals(3, changes.size());
+        assertTrue(changes.contains("ADDED s1/s1"));
+        assertTrue(changes.contains("ADDED s1/a"));
+        assertTrue(changes.contains("ADDED s1/b"));
+    }
+
+    @Test
+    public void testRemovedSuite() {
+        SuiteStatuses previous = statuses(1, snapshot("s1", "a"));
+        List<JobStatusChange> changes = JobStatusChange.between(
+                previous, statuses(2));
+        assertEquals(2, changes.size());
+        for (JobStatusChange change : changes) {
+            assertEquals(Type.REMOVED, change.getType());
+            assertEquals("s1", change.getSuiteId());
+        }
+    }
+
+    @Test
+    public void testUpdatedJobs() {
+        SuiteStatuses previous = statuses(1, snapshot("s1", "a", "b", "c"));
+        JobSuiteStatusSnapshot snapshot = snapshot("s1", "a", "c", "d");
+        status(snapshot, "a").setProgress(0.5);
+        status(snapshot, "c").setNote("note");
+        List<JobStatusChange> changes = JobStatusChange.between(
+                previous, statuses(2, snapshot));
+        assertEquals(4, changes.size());
+        List<String> strings = toStrings(changes);
+        assertTrue(strings.contains("UPDATED s1/a"));
+        assertTrue(strings.contains("UPDATED s1/c"));
+        assertTrue(strings.contains("ADDED s1/d"));
+        assertTrue(strings.contains("REMOVED s1/b"));
+
+        JobStatusChange change = changes.get(strings.indexOf("UPDATED s1/a"));
+        assertEquals(0.5, change.getProgress(), 0);
+        change = changes.get(strings.indexOf("UPDATED s1/c"));
+        assertEquals("note", change.getNote());
+    }
+
+    @Test
+    public void testUnchanged() {
+        JobSuiteStatusSnapshot snapshot = snapshot("s1", "a");
+        SuiteStatuses previous = statuses(1, snapshot);
+        // Same snapshot, or an equal one.
+        assertTrue(JobStatusChange.between(
+                previous, statuses(2, snapshot)).isEmpty());
+        assertTrue(JobStatusChange.between(
+                previous, statuses(2, snapshot("s1", "a"))).isEmpty());
+    }
+
+    private List<String> toStrings(List<JobStatusChange> changes) {
+        List<String> strings = new ArrayList<>();
+        for (JobStatusChange change : changes) {
+            strings.add(change.getType() + " " 
+                    + change.getSuiteId() + "/" + change.getJobId());
+        }
+        return strings;
+    }
+
+    private SuiteStatuses statuses(
+            long generation, JobSuiteStatusSnapshot... snapshots) {
+        Map<File, JobSuiteStatusSnapshot> files = new HashMap<>();
+        for (JobSuiteStatusSnapshot snapshot : snapshots) {
+            files.put(new File(snapshot.getRoot().getJobId() + ".index"), 
+                    snapshot);
+        }
+        return new SuiteStatuses(generation, new Date(), files, null);
+    }
+
+    private JobSuiteStatusSnapshot snapshot(String suiteId, String... jobIds) {
+        IJob[] jobs = new IJob[jobIds.length];
+        for (int i = 0; i < jobIds.length; i++) {
+            jobs[i] = new TestJob(jobIds[i]);
+        }
+        return JobSuiteStatusSnapshot.create(
+                new SyncJobGroup(suiteId, jobs), null);
+    }
+
+    private MutableJobStatus status(
+            JobSuiteStatusSnapshot snapshot, String jobId) {
+        return (MutableJobStatus) snapshot.getJobStatus(jobId);
+    }
+
+    private static class TestJob implements IJob {
+        private final String id;
+        public TestJob(String id) {
+            super();
+            this.id = id;
+        }
+        @Override
+        public String getId() {
+            return id;
+        }
+        @Override
+        public void execute(JobStatusUpdater updater, JobSuite suite) {
+            // never executed
+        }
+        @Override
+        public void stop(IJobStatus status, JobSuite suite) {
+            // never executed
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.norconex.jef4.job.IJob;
+import com.norconex.jef4.status.IJobStatus;
+import com.norconex.jef4.status.JobDuration;
+import com.norconex.jef4.status.JobStatusUpdater;
+import com.norconex.jef4.status.JobSuiteStatusSnapshot;
+import com.norconex.jef4.status.MutableJobStatus;
+import com.norconex.jef4.suite.JobSuite;
+
+public class SuiteScanSchedulerTest {
+
+    private static final long HOT = 1000;
+    private static final long COLD = 60 * 1000;
+
+    private final File index = new File("suite.index");
+    private SuiteScanScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new SuiteScanScheduler();
+    }
+
+    @Test
+    public void testNeverScheduledIsDue() {
+        assertTrue(scheduler.isDue(index, 0));
+        assertEquals(Long.MAX_VALUE, scheduler.getNextCheck());
+    }
+
+    @Test
+    public void testChangedSuiteStaysHot() {
+        scheduler.reschedule(index, null, true, HOT, COLD, 0);
+        assertFalse(scheduler.isDue(index, HOT - 1));
+        assertTrue(scheduler.isDue(index, HOT));
+        scheduler.reschedule(index, null, true, HOT, COLD, HOT);
+        assertEquals(2 * HOT, scheduler.getNextCheck());
+    }
+
+    @Test
+    public void testRunningSuiteStaysHot() {
+        JobSuiteStatusSnapshot running = createSnapshot(0, false);
+        scheduler.reschedule(index, running, true, HOT, COLD, 0);
+        scheduler.reschedule(index, running, false, HOT, COLD, HOT);
+        assertEquals(2 * HOT, scheduler.getNextCheck());
+    }
+
+    @Test
+    public void testUnchangedSuiteBacksOffToCold() {
+        long now = 0;
+        scheduler.reschedule(index, null, true, HOT, COLD, now);
+        long expected = HOT;
+        while (expected < COLD) {
+            now = scheduler.getNextCheck();
+            scheduler.reschedule(index, null, false, HOT, COLD, now);
+            expected = Math.min(COLD, expected * 2);
+            assertEquals(now + expected, scheduler.getNextCheck());
+        }
+        // Stays cold.
+        now = scheduler.getNextCheck();
+        scheduler.reschedule(index, null, false, HOT, COLD, now);
+        assertEquals(now + COLD, scheduler.getNextCheck());
+    }
+
+    @Test
+    public void testIdleSuiteBacksOffFromIdleTime() {
+        long now = 100 * 1000;
+        JobSuiteStatusSnapshot ended = createSnapshot(now - 20 * 1000, true);
+        scheduler.reschedule(index, ended, true, HOT, COLD, now - HOT);
+        scheduler.reschedule(index, ended, false, HOT, COLD, now);
+        assertEquals(now + 20 * 1000, scheduler.getNextCheck());
+    }
+
+    @Test
+    public void testPromoteMakesColdSuiteDue() {
+        long now = 0;
+        scheduler.reschedule(index, null, true, HOT, COLD, now);
+        for (int i = 0; i < 10; i++) {
+            now = scheduler.getNextCheck();
+            scheduler.reschedule(index, null, false, HOT, COLD, now);
+        }
+        assertFalse(scheduler.isDue(index, now + HOT));
+        scheduler.promote(index);
+        assertTrue(scheduler.isDue(index, now + HOT));
+        // Back to the hot interval once checked again.
+        scheduler.reschedule(index, null, false, HOT, COLD, now + HOT);
+        assertEquals(now + 2 * HOT, scheduler.getNextCheck());
+    }
+
+    @Test
+    public void testRetainAll() {
+        File other = new File("other.index");
+        scheduler.reschedule(index, null, true, HOT, COLD, 0);
+        scheduler.reschedule(other, null, true, HOT, COLD, 0);
+        scheduler.retainAll(Collections.singleton(other));
+        assertTrue(scheduler.isDue(index, 0));
+        assertFalse(scheduler.isDue(other, 0));
+    }
+
+    // Running suite, or ended suite last active at the given time.
+    private JobSuiteStatusSnapshot createSnapshot(
+            long lastActivity, boolean ended) {
+        JobSuiteStatusSnapshot snapshot = 
+                JobSuiteStatusSnapshot.create(new SuiteJob(), null);
+        MutableJobStatus root = (MutableJobStatus) snapshot.getRoot();
+        JobDuration duration = new JobDuration();
+        if (ended) {
+            duration.setStartTime(new Date(lastActivity - 1));
+            duration.setEndTime(new Date(lastActivity));
+            root.setLastActivity(new Date(lastActivity));
+            root.setProgress(1);
+        } else {
+            duration.setStartTime(new Date());
+            root.setLastActivity(new Date());
+        }
+        root.setDuration(duration);
+        return snapshot;
+    }
+
+    private static class SuiteJob implements IJob {
+        @Override
+        public String getId() {
+            return "suite";
+        }
+        @Override
+        public void execute(JobStatusUpdater updater, JobSuite suite) {
+            // never executed
+        }
+        @Override
+        public void stop(IJobStatus status, JobSuite suite) {
+            // never executed
+        }
+    }
+}
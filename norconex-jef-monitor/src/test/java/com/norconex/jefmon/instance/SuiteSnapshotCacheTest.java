@@ -0,0 +1,128 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.norconex.jef4.job.IJob;
+import com.norconex.jef4.status.IJobStatus;
+import com.norconex.jef4.status.JobStatusUpdater;
+import com.norconex.jef4.status.JobSuiteStatusSnapshot;
+import com.norconex.jef4.suite.JobSuite;
+import com.norconex.jef4.suite.JobSuiteConfig;
+
+public class SuiteSnapshotCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SuiteSnapshotCache cache;
+    private File indexFile;
+
+    @Before
+    public void setUp() throws IOException {
+        cache = new SuiteSnapshotCache();
+        JobSuiteConfig config = new JobSuiteConfig();
+        config.setWorkdir(folder.getRoot().getAbsolutePath());
+        new JobSuite(new SuiteJob(), config).execute();
+        indexFile = new File(folder.getRoot(), "latest/suite.index");
+        assertTrue(indexFile.isFile());
+    }
+
+    @Test
+    public void testUnchangedFilesReuseSnapshot() throws IOException {
+        JobSuiteStatusSnapshot first = cache.getSnapshot(indexFile);
+        assertNotNull(first);
+        assertSame(first, cache.getSnapshot(indexFile));
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertFalse(cache.isIndexModified(indexFile));
+    }
+
+    @Test
+    public void testModifiedStatusFileReloadsSnapshot() throws IOException {
+        JobSuiteStatusSnapshot first = cache.getSnapshot(indexFile);
+        File statusFile = new File(indexFile.getParentFile(),
+                IndexFileWatcher.STATUS_DIR + "/suite__suite"
+                        + IndexFileWatcher.STATUS_EXTENSION);
+        assertTrue(statusFile.isFile());
+        assertTrue(statusFile.setLastModified(
+                statusFile.lastModified() + 5000));
+        // Index file unchanged, only status files were.
+        assertFalse(cache.isIndexModified(indexFile));
+        JobSuiteStatusSnapshot second = cache.getSnapshot(indexFile);
+        assertNotSame(first, second);
+        assertEquals(2, cache.getMisses());
+        assertSame(second, cache.getSnapshot(indexFile));
+    }
+
+    @Test
+    public void testModifiedIndexFileKeepsSameStatuses() throws IOException {
+        JobSuiteStatusSnapshot first = cache.getSnapshot(indexFile);
+        assertTrue(indexFile.setLastModified(
+                indexFile.lastModified() + 5000));
+        assertTrue(cache.isIndexModified(indexFile));
+        // Loaded again, but same statuses: same instance.
+        assertSame(first, cache.getSnapshot(indexFile));
+        assertEquals(2, cache.getMisses());
+        assertFalse(cache.isIndexModified(indexFile));
+    }
+
+    @Test
+    public void testDeletedIndexFileIsRemoved() throws IOException {
+        cache.getSnapshot(indexFile);
+        assertTrue(indexFile.delete());
+        assertNull(cache.getSnapshot(indexFile));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testRetainAll() throws IOException {
+        cache.getSnapshot(indexFile);
+        cache.retainAll(Collections.singleton(new File("other.index")));
+        assertEquals(0, cache.size());
+        assertTrue(cache.isIndexModified(indexFile));
+    }
+
+    private static class SuiteJob implements IJob {
+        @Override
+        public String getId() {
+            return "suite";
+        }
+        @Override
+        public void execute(JobStatusUpdater updater, JobSuite suite) {
+            updater.setProgress(1);
+        }
+        @Override
+        public void stop(IJobStatus status, JobSuite suite) {
+            // nothing to stop
+        }
+    }
+}
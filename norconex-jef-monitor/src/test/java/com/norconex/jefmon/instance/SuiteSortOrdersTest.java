@@ -0,0 +1,106 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.norconex.jef4.job.IJob;
+import com.norconex.jef4.job.group.SyncJobGroup;
+import com.norconex.jef4.status.IJobStatus;
+import com.norconex.jef4.status.JobStatusUpdater;
+import com.norconex.jef4.status.JobSuiteStatusSnapshot;
+import com.norconex.jef4.status.MutableJobStatus;
+import com.norconex.jef4.suite.JobSuite;
+
+public class SuiteSortOrdersTest {
+
+    private SuiteSortOrders orders;
+
+    @Before
+    public void setUp() {
+        JobSuiteStatusSnapshot snapshot = JobSuiteStatusSnapshot.create(
+                new SyncJobGroup("suite", new TestJob("c"), 
+                        new TestJob("a"), new TestJob("b")), null);
+        setProgress(snapshot, "c", 0.5);
+        setProgress(snapshot, "a", 0.9);
+        setProgress(snapshot, "b", 0.5);
+        orders = new SuiteStatuses(1, new Date(), Collections.singletonMap(
+                new File("suite.index"), snapshot), null).getSortOrders();
+    }
+
+    @Test
+    public void testChildOrders() {
+        // Equal keys stay in suite order.
+        assertEquals(Arrays.asList("c", "b", "a"), orders.getChildIds(
+                "suite", "suite", JobSortProperty.PROGRESS, true));
+        assertEquals(Arrays.asList("a", "c", "b"), orders.getChildIds(
+                "suite", "suite", JobSortProperty.PROGRESS, false));
+        // Kept for the generation.
+        assertSame(orders.getChildIds(
+                "suite", "suite", JobSortProperty.PROGRESS, true),
+                orders.getChildIds(
+                        "suite", "suite", JobSortProperty.PROGRESS, true));
+    }
+
+    @Test
+    public void testNoChildren() {
+        assertTrue(orders.getChildIds(
+                "suite", "a", JobSortProperty.STATE, true).isEmpty());
+        assertTrue(orders.getChildIds(
+                "none", "none", JobSortProperty.STATE, true).isEmpty());
+    }
+
+    @Test
+    public void testSuiteOrders() {
+        assertEquals(Arrays.asList("suite"), 
+                orders.getSuiteIds(JobSortProperty.PROGRESS, true));
+    }
+
+    private void setProgress(
+            JobSuiteStatusSnapshot snapshot, String jobId, double progress) {
+        ((MutableJobStatus) snapshot.getJobStatus(jobId)).setProgress(
+                progress);
+    }
+
+    private static class TestJob implements IJob {
+        private final String id;
+        public TestJob(String id) {
+            super();
+            this.id = id;
+        }
+        @Override
+        public String getId() {
+            return id;
+        }
+        @Override
+        public void execute(JobStatusUpdater updater, JobSuite suite) {
+            // never executed
+        }
+        @Override
+        public void stop(IJobStatus status, JobSuite suite) {
+            // never executed
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instance.tree;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.wicket.extensions.markup.html.repeater.data.sort.SortOrder;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.norconex.jef4.job.IJob;
+import com.norconex.jef4.job.group.SyncJobGroup;
+import com.norconex.jef4.status.IJobStatus;
+import com.norconex.jef4.status.JobStatusUpdater;
+import com.norconex.jef4.status.JobSuiteStatusSnapshot;
+import com.norconex.jef4.status.MutableJobStatus;
+import com.norconex.jef4.suite.JobSuite;
+import com.norconex.jefmon.instance.JobSortProperty;
+import com.norconex.jefmon.instance.SuiteStatuses;
+
+public class JobTreeProviderTest {
+
+    private JobTreeProvider provider;
+
+    // Suites "s0" to "s6", with a "fetch" job in even ones and a 
+    // "parse" job in odd ones, and progress increasing with their number.
+    @Before
+    public void setUp() {
+        Map<File, JobSuiteStatusSnapshot> snapshots = new HashMap<>();
+        for (int i = 0; i < 7; i++) {
+            String suiteId = "s" + i;
+            JobSuiteStatusSnapshot snapshot = JobSuiteStatusSnapshot.create(
+                    new SyncJobGroup(suiteId, new TestJob(
+                            suiteId + (i % 2 == 0 ? "-fetch" : "-parse"))),
+                    null);
+            ((MutableJobStatus) snapshot.getJobStatus(suiteId)).setProgress(
+                    i / 10d);
+            snapshots.put(new File(suiteId + ".index"), snapshot);
+        }
+        final SuiteStatuses statuses = 
+                new SuiteStatuses(1, new Date(), snapshots, null);
+        provider = new JobTreeProvider() {
+            private static final long serialVersionUID = 1L;
+            @Override
+            SuiteStatuses getSuiteStatuses() {
+                return statuses;
+            }
+        };
+        provider.setRootsPerPage(3);
+    }
+
+    @Test
+    public void testPages() {
+        assertEquals(7, provider.size());
+        assertEquals(3, provider.getPageCount());
+        assertEquals(Arrays.asList("s3", "s4", "s5"), 
+                toSuiteIds(provider.getRoots(3, 3)));
+        assertEquals(Arrays.asList("s6"), toSuiteIds(provider.getRoots(6, 3)));
+        provider.setCurrentPage(2);
+        assertEquals(Arrays.asList("s6"), toSuiteIds(provider.getRoots()));
+    }
+
+    @Test
+    public void testSearchPages() {
+        provider.setSearchText("fetch");
+        assertEquals(4, provider.size());
+        assertEquals(2, provider.getPageCount());
+        assertEquals(Arrays.asList("s0", "s2", "s4"), 
+                toSuiteIds(provider.getRoots(0, 3)));
+        assertEquals(Arrays.asList("s6"), toSuiteIds(provider.getRoots(3, 3)));
+        assertEquals(Arrays.asList("s4", "s6"), 
+                toSuiteIds(provider.getRoots(2, 3)));
+        assertEquals(Collections.emptyList(), 
+                toSuiteIds(provider.getRoots(4, 3)));
+        // Pages past the last one show the last one.
+        provider.setCurrentPage(2);
+        assertEquals(1, provider.getCurrentPage());
+        assertEquals(Arrays.asList("s6"), toSuiteIds(provider.getRoots()));
+        // Searching again goes back to the first page.
+        provider.setSearchText("parse");
+        assertEquals(0, provider.getCurrentPage());
+        assertEquals(Arrays.asList("s1", "s3", "s5"), 
+                toSuiteIds(provider.getRoots()));
+    }
+
+    @Test
+    public void testSortedSearchPages() {
+        provider.getSortState().setPropertySortOrder(
+                JobSortProperty.PROGRESS, SortOrder.DESCENDING);
+        provider.setSearchText("fetch");
+        assertEquals(Arrays.asList("s6", "s4", "s2"), 
+                toSuiteIds(provider.getRoots(0, 3)));
+        assertEquals(Arrays.asList("s0"), toSuiteIds(provider.getRoots(3, 3)));
+        assertEquals(Arrays.asList("s2", "s0"), 
+                toSuiteIds(provider.getRoots(2, 3)));
+        assertEquals(Collections.emptyList(), 
+                toSuiteIds(provider.getRoots(4, 3)));
+    }
+
+    private List<String> toSuiteIds(
+            Iterator<? extends JobStatusTreeNode> roots) {
+        List<String> suiteIds = new ArrayList<>();
+        while (roots.hasNext()) {
+            suiteIds.add(roots.next().getSuiteId());
+        }
+        return suiteIds;
+    }
+
+    private static class TestJob implements IJob {
+        private final String id;
+        public TestJob(String id) {
+            super();
+            this.id = id;
+        }
+        @Override
+        public String getId() {
+            return id;
+        }
+        @Override
+        public void execute(JobStatusUpdater updater, JobSuite suite) {
+            // never executed
+        }
+        @Override
+        public void stop(IJobStatus status, JobSuite suite) {
+            // never executed
+        }
+    }
+}
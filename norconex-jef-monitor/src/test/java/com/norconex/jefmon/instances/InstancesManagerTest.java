@@ -0,0 +1,131 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instances;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.commons.lang3.mutable.MutableInt;
+import org.junit.Test;
+
+import com.norconex.jef4.status.JobState;
+
+public class InstancesManagerTest {
+
+    private final InstanceSummary a = createSummary("A", 1);
+    private final InstanceSummary b = createSummary("B", 10);
+    private final InstanceSummary c = createSummary("C", 100);
+    private final InstanceSummary d = createSummary("D", 1000);
+
+    @Test
+    public void testCycle() {
+        // A -> B -> A, with B counting A back.
+        b.setAggregate(createAggregate(1, b, a));
+        InstanceAggregate aggregate = aggregate(a, 2, b);
+        assertCounted(aggregate, 11, "A", "B");
+        assertEquals(1, aggregate.getDepth());
+
+        // B asked by A: A is not counted back.
+        InstanceSummary aFromB = createSummary("A", 1);
+        aFromB.setAggregate(createAggregate(1, a, b));
+        aggregate = InstancesManager.createAggregate(b, 
+                Arrays.asList(aFromB), Arrays.asList("A"), 1);
+        assertCounted(aggregate, 10, "B");
+
+        // Request coming back to B: only B itself.
+        aggregate = InstancesManager.createAggregate(b, 
+                Arrays.asList(aFromB), Arrays.asList("A", "B"), 1);
+        assertCounted(aggregate, 10, "B");
+        assertEquals(0, aggregate.getDepth());
+    }
+
+    @Test
+    public void testDiamond() {
+        // A -> {B, C} -> D
+        b.setAggregate(createAggregate(1, b, d));
+        c.setAggregate(createAggregate(1, c, d));
+        InstanceAggregate aggregate = aggregate(a, 2, b, c);
+        assertCounted(aggregate, 1111, "A", "B", "C", "D");
+        assertEquals(2, aggregate.getDepth());
+    }
+
+    @Test
+    public void testDepth() {
+        b.setAggregate(createAggregate(1, b, d));
+        assertCounted(aggregate(a, 0, b), 1, "A");
+        // B aggregate too deep: B alone.
+        InstanceAggregate aggregate = aggregate(a, 1, b);
+        assertCounted(aggregate, 11, "A", "B");
+        assertEquals(1, aggregate.getDepth());
+        aggregate = aggregate(a, 2, b);
+        assertCounted(aggregate, 1011, "A", "B", "D");
+        assertEquals(2, aggregate.getDepth());
+    }
+
+    @Test
+    public void testRemotesWithoutId() {
+        // Older remote instances have no id nor aggregate.
+        InstanceSummary old1 = createSummary(null, 10);
+        InstanceSummary old2 = createSummary(null, 100);
+        InstanceSummary failing = createSummary(null, 1000);
+        failing.setRemoteErrorKey("error.timeout");
+        InstanceAggregate aggregate = aggregate(a, 1, old1, old2, failing);
+        assertCounted(aggregate, 111, "A");
+        assertEquals(1, aggregate.getDepth());
+    }
+
+    private InstanceAggregate aggregate(InstanceSummary thisInstance, 
+            int maxDepth, InstanceSummary... remotes) {
+        return InstancesManager.createAggregate(thisInstance, 
+                Arrays.asList(remotes), Collections.<String>emptyList(), 
+                maxDepth);
+    }
+
+    private void assertCounted(
+            InstanceAggregate aggregate, int total, String... ids) {
+        assertEquals(new HashSet<>(Arrays.asList(ids)), 
+                aggregate.getInstanceIds());
+        assertEquals(total, aggregate.getTotalRoots());
+        assertEquals(total, 
+                aggregate.getStatuses().get(JobState.COMPLETED).intValue());
+    }
+
+    // Aggregate of an instance and the remote instances it monitors.
+    private InstanceAggregate createAggregate(int depth, 
+            InstanceSummary instance, InstanceSummary... remotes) {
+        InstanceAggregate aggregate = new InstanceAggregate();
+        aggregate.add(instance, 0);
+        for (InstanceSummary remote : remotes) {
+            aggregate.add(remote, 1);
+        }
+        aggregate.setDepth(depth);
+        return aggregate;
+    }
+
+    private InstanceSummary createSummary(String id, int completed) {
+        InstanceSummary summary = 
+                new InstanceSummary("http://remote" + completed);
+        summary.setId(id);
+        summary.setName(id);
+        summary.setTotalRoots(completed);
+        summary.getStatuses().put(
+                JobState.COMPLETED, new MutableInt(completed));
+        return summary;
+    }
+}
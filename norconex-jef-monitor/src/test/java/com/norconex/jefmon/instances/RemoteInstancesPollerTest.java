@@ -0,0 +1,250 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.instances;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.norconex.jefmon.JEFMonConfig;
+
+public class RemoteInstancesPollerTest {
+
+    private static final String URL = "http://remote:8080";
+    private static final long INTERVAL = 5000;
+    private static final long TIMEOUT = 2000;
+
+    private StubHttpClient httpClient;
+    private StubExecutor executor;
+    private RemoteInstancesPoller poller;
+
+    @Before
+    public void setUp() {
+        JEFMonConfig config = new JEFMonConfig();
+        config.setRemoteInstanceUrls(new String[] { URL });
+        config.setDefaultRefreshInterval((int) (INTERVAL / 1000));
+        config.setRemoteTimeout(TIMEOUT);
+        httpClient = new StubHttpClient();
+        executor = new StubExecutor();
+        poller = new RemoteInstancesPoller(config, httpClient, executor);
+    }
+
+    @Test
+    public void testHealthy() {
+        assertEquals("error.pending", 
+                getSummary().getRemoteErrorKey());
+        poll(0);
+        assertEquals(RemoteHealth.HEALTHY, getSummary().getHealth());
+        assertEquals("remote", getSummary().getName());
+        assertEquals(1, httpClient.requests);
+
+        // Not polled again before the refresh interval.
+        poll(INTERVAL - 1);
+        assertEquals(1, httpClient.requests);
+        poll(INTERVAL);
+        assertEquals(2, httpClient.requests);
+    }
+
+    @Test
+    public void testDegradedOpenHealthy() {
+        httpClient.failing = true;
+        long now = 0;
+        for (int i = 1; i < RemoteInstancesPoller.FAILURES_BEFORE_OPEN; 
+                i++) {
+            poll(now);
+            assertEquals(i, httpClient.requests);
+            assertEquals(RemoteHealth.DEGRADED, getSummary().getHealth());
+            assertNull(getSummary().getNextRetry());
+            // Still polled at the refresh interval.
+            poll(now + INTERVAL - 1);
+            assertEquals(i, httpClient.requests);
+            now += INTERVAL;
+        }
+
+        poll(now);
+        InstanceSummary summary = getSummary();
+        assertEquals(RemoteHealth.OPEN, summary.getHealth());
+        long retry = summary.getNextRetry().getTime();
+        assertBetween(now + INTERVAL, now + 2 * INTERVAL, retry);
+
+        // Only probed once the backoff elapsed.
+        int requests = httpClient.requests;
+        poll(retry - 1);
+        assertEquals(requests, httpClient.requests);
+        poll(retry);
+        assertEquals(requests + 1, httpClient.requests);
+        assertEquals(RemoteHealth.OPEN, getSummary().getHealth());
+        // Backing off longer after another failure.
+        long nextRetry = getSummary().getNextRetry().getTime();
+        assertBetween(retry + 2 * INTERVAL, retry + 4 * INTERVAL, nextRetry);
+
+        httpClient.failing = false;
+        poll(nextRetry);
+        assertEquals(requests + 2, httpClient.requests);
+        summary = getSummary();
+        assertEquals(RemoteHealth.HEALTHY, summary.getHealth());
+        assertFalse(summary.isInvalid());
+        assertNull(summary.getNextRetry());
+        poll(nextRetry + INTERVAL);
+        assertEquals(requests + 3, httpClient.requests);
+    }
+
+    @Test
+    public void testTimedOut() {
+        poller.tick(0);
+        // Poll never executed.
+        poller.tick(TIMEOUT);
+        assertEquals("error.pending", getSummary().getRemoteErrorKey());
+        poller.tick(TIMEOUT + 1);
+        InstanceSummary summary = getSummary();
+        assertTrue(summary.isTimedOut());
+        assertEquals(RemoteHealth.DEGRADED, summary.getHealth());
+        // Poll aborted.
+        assertTrue(((Future<?>) executor.tasks.get(0)).isCancelled());
+    }
+
+    @Test
+    public void testBackoffBounds() {
+        long max = RemoteInstancesPoller.MAX_BACKOFF;
+        for (int attempt = 0; attempt < 40; attempt++) {
+            long cap = Math.min(max, INTERVAL << (attempt + 1));
+            assertBetween(cap / 2, cap, 
+                    RemoteInstancesPoller.getBackoff(INTERVAL, attempt));
+        }
+        // Intervals longer than the maximum backoff are kept.
+        long interval = 2 * max;
+        for (int attempt = 0; attempt < 5; attempt++) {
+            assertBetween(interval / 2, interval, 
+                    RemoteInstancesPoller.getBackoff(interval, attempt));
+        }
+    }
+
+    // Starts a poll, executes it, and completes it.
+    private void poll(long now) {
+        poller.tick(now);
+        executor.runAll();
+        poller.tick(now);
+    }
+    private InstanceSummary getSummary() {
+        return poller.getSummaries().get(0);
+    }
+    private void assertBetween(long min, long max, long value) {
+        assertTrue(value + " < " + min, value >= min);
+        assertTrue(value + " > " + max, value <= max);
+    }
+
+    // Runs tasks only when asked to.
+    private static class StubExecutor extends AbstractExecutorService {
+        private final List<Runnable> tasks = new ArrayList<>();
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+        public void runAll() {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+            tasks.clear();
+        }
+        @Override
+        public void shutdown() {
+            tasks.clear();
+        }
+        @Override
+        public List<Runnable> shutdownNow() {
+            List<Runnable> notRun = new ArrayList<>(tasks);
+            tasks.clear();
+            return notRun;
+        }
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+
+    // Returns an instance with no job, or fails to connect.
+    private static class StubHttpClient extends CloseableHttpClient {
+        private boolean failing;
+        private int requests;
+        @Override
+        protected CloseableHttpResponse doExecute(HttpHost target,
+                HttpRequest request, HttpContext context) throws IOException {
+            requests++;
+            if (failing) {
+                throw new ConnectException("Connection refused");
+            }
+            StubHttpResponse response = new StubHttpResponse();
+            response.setEntity(new StringEntity(
+                    "{\"name\":\"remote\",\"total\":0,\"statuses\":{}}", 
+                    ContentType.APPLICATION_JSON));
+            return response;
+        }
+        @Override
+        public void close() {
+            // nothing to close
+        }
+        @Deprecated
+        @Override
+        public HttpParams getParams() {
+            throw new UnsupportedOperationException();
+        }
+        @Deprecated
+        @Override
+        public ClientConnectionManager getConnectionManager() {
+            throw new UnsupportedOperationException();
+        }
+    }
+    private static class StubHttpResponse extends BasicHttpResponse 
+            implements CloseableHttpResponse {
+        public StubHttpResponse() {
+            super(HttpVersion.HTTP_1_1, 200, "OK");
+        }
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.ws;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.wicket.ajax.json.JSONArray;
+import org.apache.wicket.ajax.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.norconex.jef4.job.IJob;
+import com.norconex.jef4.job.group.SyncJobGroup;
+import com.norconex.jef4.status.IJobStatus;
+import com.norconex.jef4.status.JobDuration;
+import com.norconex.jef4.status.JobStatusUpdater;
+import com.norconex.jef4.status.JobSuiteStatusSnapshot;
+import com.norconex.jef4.status.MutableJobStatus;
+import com.norconex.jef4.suite.JobSuite;
+import com.norconex.jefmon.instance.JobStatusChange;
+import com.norconex.jefmon.instance.SuiteStatuses;
+
+public class JobStatusMessageTest {
+
+    private SuiteStatuses previous;
+    private SuiteStatuses current;
+
+    @Before
+    public void setUp() {
+        JobSuiteStatusSnapshot completed = snapshot("s1", "a");
+        complete((MutableJobStatus) completed.getJobStatus("s1"));
+        complete((MutableJobStatus) completed.getJobStatus("a"));
+        Map<File, JobSuiteStatusSnapshot> snapshots = new HashMap<>();
+        snapshots.put(new File("s1.index"), snapshot("s1", "a"));
+        previous = new SuiteStatuses(4, new Date(), snapshots, null);
+        snapshots.put(new File("s1.index"), completed);
+        snapshots.put(new File("s2.index"), snapshot("s2"));
+        current = new SuiteStatuses(5, new Date(), snapshots, previous);
+    }
+
+    @Test
+    public void testChanges() throws Exception {
+        List<JobStatusChange> changes = 
+                JobStatusChange.between(previous, current);
+        String message = JobStatusMessage.toJSON(current, changes);
+        assertFalse(message.contains("\n"));
+
+        JSONObject json = new JSONObject(message);
+        assertEquals(5, json.getLong("generation"));
+        assertEquals(2, json.getInt("total"));
+        JSONObject statuses = json.getJSONObject("statuses");
+        assertEquals(2, statuses.length());
+        assertEquals(1, statuses.getInt("COMPLETED"));
+        assertEquals(1, statuses.getInt("UNKNOWN"));
+
+        JSONArray jobs = json.getJSONArray("jobs");
+        assertEquals(changes.size(), jobs.length());
+        for (int i = 0; i < jobs.length(); i++) {
+            JSONObject job = jobs.getJSONObject(i);
+            JobStatusChange change = changes.get(i);
+            assertEquals(change.getType().toString(), job.getString("change"));
+            assertEquals(change.getSuiteId(), job.getString("suite"));
+            assertEquals(change.getJobId(), job.getString("job"));
+            assertEquals(change.getState().toString(), job.getString("state"));
+            assertEquals(change.getProgress(), job.getDouble("progress"), 0);
+        }
+        JSONObject job = jobs.getJSONObject(0);
+        assertEquals("UPDATED", job.getString("change"));
+        assertEquals("COMPLETED", job.getString("state"));
+        assertEquals(1, job.getDouble("progress"), 0);
+    }
+
+    @Test
+    public void testNoChanges() throws Exception {
+        JSONObject json = new JSONObject(
+                JobStatusMessage.toJSON(SuiteStatuses.EMPTY, null));
+        assertEquals(0, json.getLong("generation"));
+        assertEquals(0, json.getInt("total"));
+        assertEquals(0, json.getJSONObject("statuses").length());
+        assertFalse(json.has("jobs"));
+        json = new JSONObject(JobStatusMessage.toJSON(current, 
+                JobStatusChange.between(current, current)));
+        assertEquals(0, json.getJSONArray("jobs").length());
+    }
+
+    private JobSuiteStatusSnapshot snapshot(String suiteId, String... jobIds) {
+        IJob[] jobs = new IJob[jobIds.length];
+        for (int i = 0; i < jobIds.length; i++) {
+            jobs[i] = new TestJob(jobIds[i]);
+        }
+        return JobSuiteStatusSnapshot.create(
+                new SyncJobGroup(suiteId, jobs), null);
+    }
+
+    private void complete(MutableJobStatus status) {
+        JobDuration duration = new JobDuration();
+        duration.setStartTime(new Date(1000));
+        duration.setEndTime(new Date(2000));
+        status.setDuration(duration);
+        status.setLastActivity(new Date(2000));
+        status.setProgress(1);
+    }
+
+    private static class TestJob implements IJob {
+        private final String id;
+        public TestJob(String id) {
+            super();
+            this.id = id;
+        }
+        @Override
+        public String getId() {
+            return id;
+        }
+        @Override
+        public void execute(JobStatusUpdater updater, JobSuite suite) {
+            // never executed
+        }
+        @Override
+        public void stop(IJobStatus status, JobSuite suite) {
+            // never executed
+        }
+    }
+}
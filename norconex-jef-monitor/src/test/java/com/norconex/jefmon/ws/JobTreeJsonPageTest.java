@@ -0,0 +1,103 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.ws;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.Locale;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.wicket.ajax.json.JSONObject;
+import org.apache.wicket.util.tester.WicketTester;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.norconex.jefmon.JEFMonApplication;
+import com.norconex.jefmon.JEFMonConfig;
+
+public class JobTreeJsonPageTest {
+
+    private WicketTester tester;
+
+    @Before
+    public void setUp() {
+        JEFMonConfig config = new JEFMonConfig();
+        config.setInstanceName("test");
+        tester = new WicketTester(new JEFMonApplication(
+                config, new Locale[] { Locale.ENGLISH }));
+    }
+
+    @After
+    public void tearDown() {
+        tester.destroy();
+    }
+
+    @Test
+    public void testStatuses() throws Exception {
+        tester.executeUrl("jobs/json?fields=state,progress");
+        assertEquals(HttpServletResponse.SC_OK, 
+                tester.getLastResponse().getStatus());
+        assertEquals("no-cache", 
+                tester.getLastResponse().getHeader("Cache-Control"));
+        JSONObject json = new JSONObject(
+                tester.getLastResponse().getDocument());
+        assertEquals(0, json.getLong("generation"));
+        assertEquals(0, json.getJSONArray("suites").length());
+    }
+
+    @Test
+    public void testNotModified() {
+        tester.executeUrl("jobs/json?fields=state");
+        String etag = tester.getLastResponse().getHeader("ETag");
+        assertNotNull(etag);
+
+        tester.addRequestHeader("If-None-Match", etag);
+        tester.executeUrl("jobs/json?fields=state");
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, 
+                tester.getLastResponse().getStatus());
+        assertEquals(etag, tester.getLastResponse().getHeader("ETag"));
+        assertEquals("", tester.getLastResponse().getDocument());
+
+        // Among other tags, or weak.
+        tester.addRequestHeader("If-None-Match", "\"other\", W/" + etag);
+        tester.executeUrl("jobs/json?fields=state");
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, 
+                tester.getLastResponse().getStatus());
+
+        // Other parameters, other tag.
+        tester.addRequestHeader("If-None-Match", etag);
+        tester.executeUrl("jobs/json?fields=state,note");
+        assertEquals(HttpServletResponse.SC_OK, 
+                tester.getLastResponse().getStatus());
+        assertFalse(etag.equals(tester.getLastResponse().getHeader("ETag")));
+    }
+
+    @Test
+    public void testUnsupportedParameters() {
+        tester.executeUrl("jobs/json?fields=state,bogus");
+        assertEquals(HttpServletResponse.SC_BAD_REQUEST, 
+                tester.getLastResponse().getStatus());
+        tester.executeUrl("jobs/json?state=RUNNING&state=BOGUS");
+        assertEquals(HttpServletResponse.SC_BAD_REQUEST, 
+                tester.getLastResponse().getStatus());
+        tester.executeUrl("jobs/json?state=RUNNING,COMPLETED");
+        assertEquals(HttpServletResponse.SC_OK, 
+                tester.getLastResponse().getStatus());
+    }
+}
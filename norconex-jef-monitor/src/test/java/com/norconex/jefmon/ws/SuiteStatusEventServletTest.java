@@ -0,0 +1,163 @@
+/* Copyright 2017 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.jefmon.ws;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.norconex.jef4.job.IJob;
+import com.norconex.jef4.job.group.SyncJobGroup;
+import com.norconex.jef4.status.IJobStatus;
+import com.norconex.jef4.status.JobStatusUpdater;
+import com.norconex.jef4.status.JobSuiteStatusSnapshot;
+import com.norconex.jef4.status.MutableJobStatus;
+import com.norconex.jef4.suite.JobSuite;
+import com.norconex.jefmon.JEFMonConfig;
+import com.norconex.jefmon.instance.JEFMonInstance;
+import com.norconex.jefmon.instance.SuiteStatuses;
+
+public class SuiteStatusEventServletTest {
+
+    private SuiteStatusEventServlet servlet;
+    private SuiteStatuses last = SuiteStatuses.EMPTY;
+
+    @Before
+    public void setUp() throws Exception {
+        servlet = new SuiteStatusEventServlet(
+                new JEFMonInstance(new JEFMonConfig()));
+        servlet.init();
+    }
+
+    @After
+    public void tearDown() {
+        servlet.destroy();
+    }
+
+    @Test
+    public void testSnapshot() {
+        publish(3);
+        List<String> events = servlet.getResumeEvents(null);
+        assertEquals(1, events.size());
+        // As of the last generation published, not the instance one.
+        assertEquals(3, getGeneration(events.get(0)));
+        assertEquals("snapshot", getType(events.get(0)));
+    }
+
+    @Test
+    public void testResumeFromHistory() {
+        publish(5);
+        String streamId = getStreamId();
+        List<String> events = servlet.getResumeEvents(streamId + "-1");
+        assertEquals(4, events.size());
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(i + 2, getGeneration(events.get(i)));
+            assertEquals("change", getType(events.get(i)));
+        }
+        events = servlet.getResumeEvents(streamId + "-5");
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void testSnapshotWhenNotResumable() {
+        publish(2);
+        String streamId = getStreamId();
+        // From another stream, or a generation not published yet.
+        assertSnapshot(servlet.getResumeEvents("other-1"), 2);
+        assertSnapshot(servlet.getResumeEvents(streamId + "-3"), 2);
+        // No longer in history.
+        publish(SuiteStatusEventServlet.HISTORY_SIZE);
+        long generation = SuiteStatusEventServlet.HISTORY_SIZE + 2;
+        assertSnapshot(servlet.getResumeEvents(streamId + "-1"), generation);
+        assertEquals(1, servlet.getResumeEvents(
+                streamId + "-" + (generation - 1)).size());
+    }
+
+    @Test
+    public void testGenerationPublishedOnce() {
+        publish(1);
+        SuiteStatuses first = last;
+        publish(1);
+        String streamId = getStreamId();
+        // Notified again, or after being sent in a snapshot.
+        servlet.suiteStatusesPublished(first, last);
+        assertEquals(1, servlet.getResumeEvents(streamId + "-1").size());
+    }
+
+    // Publishes generations with a job progress different each time.
+    private void publish(int count) {
+        for (int i = 0; i < count; i++) {
+            JobSuiteStatusSnapshot snapshot = JobSuiteStatusSnapshot.create(
+                    new SyncJobGroup("suite", new TestJob("a")), null);
+            ((MutableJobStatus) snapshot.getJobStatus("a")).setProgress(
+                    (last.getGeneration() + 1) / 1000d);
+            SuiteStatuses current = new SuiteStatuses(
+                    last.getGeneration() + 1, new Date(), 
+                    Collections.singletonMap(
+                            new File("suite.index"), snapshot), last);
+            servlet.suiteStatusesPublished(last, current);
+            last = current;
+        }
+    }
+
+    private void assertSnapshot(List<String> events, long generation) {
+        assertEquals(1, events.size());
+        assertEquals("snapshot", getType(events.get(0)));
+        assertEquals(generation, getGeneration(events.get(0)));
+    }
+
+    private String getStreamId() {
+        return StringUtils.substringBefore(
+                getId(servlet.getResumeEvents(null).get(0)), "-");
+    }
+    private String getId(String event) {
+        return StringUtils.substringBetween(event, "id: ", "\n");
+    }
+    private String getType(String event) {
+        return StringUtils.substringBetween(event, "event: ", "\n");
+    }
+    private long getGeneration(String event) {
+        return Long.parseLong(StringUtils.substringAfter(getId(event), "-"));
+    }
+
+    private static class TestJob implements IJob {
+        private final String id;
+        public TestJob(String id) {
+            super();
+            this.id = id;
+        }
+        @Override
+        public String getId() {
+            return id;
+        }
+        @Override
+        public void execute(JobStatusUpdater updater, JobSuite suite) {
+            // never executed
+        }
+        @Override
+        public void stop(IJobStatus status, JobSuite suite) {
+            // never executed
+        }
+    }
+}